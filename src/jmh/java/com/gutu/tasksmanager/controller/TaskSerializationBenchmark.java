@@ -0,0 +1,63 @@
+package com.gutu.tasksmanager.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskSerializationBenchmark class measures the JSON serialization of task lists, as written by the controller.
+ * The object mapper is built with the same defaults Spring Boot applies to the application one.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private List<TaskWithDetails> tasks;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        tasks = new ArrayList<>(size);
+        OffsetDateTime createdAt = OffsetDateTime.parse("2025-03-06T12:00:00Z");
+        for (int i = 0; i < size; i++) {
+            var task = new TaskWithDetails();
+            task.setId((long) i + 1);
+            task.setTitle("Task " + i);
+            task.setDescription("Wash the dishes after dinner, dry them and put them back in the cupboard.");
+            task.setStatus(SimpleTask.StatusEnum.values()[i % 3]);
+            task.setCreatedAt(createdAt.plusMinutes(i));
+            task.setUpdatedAt(createdAt.plusMinutes(i + 1));
+            task.setVersion(1L);
+            tasks.add(task);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeTaskList() throws Exception {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+}
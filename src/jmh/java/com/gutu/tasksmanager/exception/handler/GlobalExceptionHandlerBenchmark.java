@@ -0,0 +1,68 @@
+package com.gutu.tasksmanager.exception.handler;
+
+import com.gutu.tasksmanager.exception.ValidationException;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GlobalExceptionHandlerBenchmark class measures the construction of the error responses.
+ * The validation error is measured with and without creating the exception, whose stack trace
+ * is usually the most expensive part of a rejected request.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+
+    private ValidationException validationException;
+
+    private MethodArgumentNotValidException argumentNotValidException;
+
+    @Setup
+    public void setUp() throws Exception {
+        handler = new GlobalExceptionHandler();
+        validationException = new ValidationException("Invalid title: contains invalid characters");
+
+        var bindingResult = new BeanPropertyBindingResult(new CreateUpdateTaskRequest(), "request");
+        bindingResult.addError(new FieldError("request", "title", "must not be null"));
+        bindingResult.addError(new FieldError("request", "status", "must not be null"));
+        var parameter = new MethodParameter(
+                GlobalExceptionHandlerBenchmark.class.getDeclaredMethod("setUp"), -1);
+        argumentNotValidException = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> handleValidationException() {
+        return handler.handleValidationException(validationException);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> throwAndHandleValidationException() {
+        return handler.handleValidationException(new ValidationException("Invalid title: contains invalid characters"));
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> handleMethodArgumentNotValid() {
+        return handler.handleValidationExceptions(argumentNotValidException);
+    }
+}
@@ -0,0 +1,52 @@
+package com.gutu.tasksmanager.service.impl;
+
+import com.gutu.tasksmanager.entity.TaskEntity;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskMappingBenchmark class measures the mapping of a task entity to the task details returned by the API.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskMappingBenchmark {
+
+    private TaskService taskService;
+
+    private TaskEntity task;
+
+    @Setup
+    public void setUp() {
+        // The mapping uses none of the collaborators
+        taskService = new TaskService(null, null, null, null, 50, 500, 50, 20, 100, Duration.ofSeconds(2), Duration.ofDays(30));
+        task = new TaskEntity();
+        task.setId(42L);
+        task.setTitle("Wash the dishes");
+        task.setDescription("Wash the dishes after dinner, dry them and put them back in the cupboard.");
+        task.setStatus(SimpleTask.StatusEnum.IN_PROGRESS);
+        task.setCreatedAt(OffsetDateTime.parse("2025-03-06T12:00:00Z"));
+        task.setUpdatedAt(OffsetDateTime.parse("2025-03-06T12:30:00Z"));
+        task.setVersion(3L);
+    }
+
+    @Benchmark
+    public TaskWithDetails mapToTaskWithDetails() {
+        return taskService.mapToTaskWithDetails(task);
+    }
+}
@@ -0,0 +1,111 @@
+package com.gutu.tasksmanager.service.impl;
+
+import com.gutu.tasksmanager.TasksManagerApplication;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.repository.TaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskReadBenchmark class compares reading tasks as managed entities with reading them as projections,
+ * against an in-memory H2 database. Run it with -prof gc to see the bytes allocated per call.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskReadBenchmark {
+
+    @Param({"100", "1000"})
+    public int tasks;
+
+    private ConfigurableApplicationContext context;
+
+    private TaskService taskService;
+
+    private TaskRepository taskRepository;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private Long taskId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(TasksManagerApplication.class)
+                .profiles("test")
+                .run("--spring.main.web-application-type=none",
+                        "--spring.docker.compose.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + tasks + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        taskService = context.getBean(TaskService.class);
+        taskRepository = context.getBean(TaskRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        List<CreateUpdateTaskRequest> requests = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            var request = new CreateUpdateTaskRequest();
+            request.setTitle("Task " + i);
+            request.setDescription("Wash the dishes after dinner, dry them and put them back in the cupboard.");
+            request.setStatus(SimpleTask.StatusEnum.TODO);
+            requests.add(request);
+        }
+        taskId = taskService.createTasks(requests).get(tasks / 2).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Loads managed entities and maps every one of them, as getAllTasks did before the projections.
+     */
+    @Benchmark
+    public List<TaskWithDetails> getAllTasksAsEntities() {
+        return readOnlyTransaction.execute(status -> taskRepository.findAll().stream()
+                .map(taskService::mapToTaskWithDetails)
+                .toList());
+    }
+
+    @Benchmark
+    public List<TaskWithDetails> getAllTasksAsViews() {
+        return taskService.getAllTasks();
+    }
+
+    /**
+     * Loads a managed entity and maps it, as getTaskById did before the projections.
+     */
+    @Benchmark
+    public TaskWithDetails getTaskByIdAsEntity() {
+        return readOnlyTransaction.execute(status -> taskRepository.findById(taskId)
+                .map(taskService::mapToTaskWithDetails)
+                .orElse(null));
+    }
+
+    @Benchmark
+    public TaskWithDetails getTaskByIdAsView() {
+        return taskService.getTaskById(taskId);
+    }
+}
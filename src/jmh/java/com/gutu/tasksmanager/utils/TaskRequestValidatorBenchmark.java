@@ -0,0 +1,78 @@
+package com.gutu.tasksmanager.utils;
+
+import com.gutu.tasksmanager.exception.ValidationException;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskRequestValidatorBenchmark class measures the validation of a create request.
+ * The realistic input is a short title with a sentence long description; the worst cases are
+ * inputs of the maximum length that pass every check, that are full of keyword look-alikes,
+ * and that are only rejected by the last check.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskRequestValidatorBenchmark {
+
+    @Param({"realistic", "max-length", "keyword-like", "rejected-last"})
+    private String input;
+
+    private TaskRequestValidator validator;
+
+    private CreateUpdateTaskRequest request;
+
+    @Setup
+    public void setUp() {
+        validator = new TaskRequestValidator(1000);
+        request = new CreateUpdateTaskRequest();
+        request.setStatus(SimpleTask.StatusEnum.TODO);
+        switch (input) {
+            case "realistic" -> {
+                request.setTitle("Wash the dishes");
+                request.setDescription("Wash the dishes after dinner, dry them and put them back in the cupboard.");
+            }
+            case "max-length" -> {
+                request.setTitle(repeat("Task title ", 100));
+                request.setDescription(repeat("A long but perfectly valid description, with punctuation! ", 500));
+            }
+            case "keyword-like" -> {
+                request.setTitle(repeat("selected dropping updates ", 100));
+                request.setDescription(repeat("executive unions declared deletes onloaded ", 500));
+            }
+            case "rejected-last" -> {
+                request.setTitle("Wash the dishes");
+                request.setDescription(repeat("A long but perfectly valid description ", 499) + " ");
+            }
+            default -> throw new IllegalArgumentException(input);
+        }
+    }
+
+    @Benchmark
+    public Object validateCreateRequest() {
+        try {
+            validator.validateCreateRequest(request);
+            return request;
+        } catch (ValidationException e) {
+            return e;
+        }
+    }
+
+    private static String repeat(String value, int length) {
+        return value.repeat(length / value.length() + 1).substring(0, length).trim();
+    }
+}
@@ -0,0 +1,134 @@
+package com.gutu.tasksmanager.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * LoadTestConfig class holds the settings of a load test run, read from the loadtest.* system properties.
+ *
+ * @param rate the number of requests started per second.
+ * @param warmup the time the load is applied before latencies are recorded.
+ * @param duration the time latencies are recorded.
+ * @param concurrency the number of requests that can be in flight at once.
+ * @param seedTasks the number of tasks created before the run.
+ * @param mix the relative weight of every operation.
+ * @param budgets the latency budget of every operation, by percentile.
+ * @param maxErrorRate the highest accepted share of failed requests.
+ * @param result the path of the JSON report.
+ * @param clients the number of clients that each send a request as soon as their previous one completed,
+ *                or 0 to start requests at the fixed rate instead.
+ * @param virtualThreads whether the application serves requests on virtual threads.
+ * @param reactive whether the application runs with the reactive profile, on WebFlux and R2DBC.
+ * @param baseUrl the URL of an application that is already running, or empty to start one in-process.
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public record LoadTestConfig(int rate,
+                             Duration warmup,
+                             Duration duration,
+                             int concurrency,
+                             int seedTasks,
+                             Map<TaskOperation, Integer> mix,
+                             Map<TaskOperation, Map<Double, Duration>> budgets,
+                             double maxErrorRate,
+                             String result,
+                             int clients,
+                             boolean virtualThreads,
+                             boolean reactive,
+                             String baseUrl) {
+
+    /**
+     * The fromSystemProperties method is used to read the configuration, falling back to the defaults.
+     *
+     * @return the configuration of the run.
+     */
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.rate", 200),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "30s")),
+                Integer.getInteger("loadtest.concurrency", 64),
+                Integer.getInteger("loadtest.seed-tasks", 1000),
+                parseMix(System.getProperty("loadtest.mix", "create=20,read=50,update=15,delete=5,list=10")),
+                parseBudgets(System.getProperty("loadtest.budget", "*.p99=250ms")),
+                Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")),
+                System.getProperty("loadtest.result", "target/loadtest-result.json"),
+                Integer.getInteger("loadtest.clients", 0),
+                Boolean.getBoolean("loadtest.virtual-threads"),
+                Boolean.getBoolean("loadtest.reactive"),
+                System.getProperty("loadtest.base-url", ""));
+    }
+
+    /**
+     * The isClosedLoop method is used to tell whether the run uses a fixed number of clients instead of a fixed rate.
+     *
+     * @return true when requests are sent by a fixed number of clients.
+     */
+    public boolean isClosedLoop() {
+        return clients > 0;
+    }
+
+    /**
+     * The parseMix method is used to read a mix such as "create=20,read=80".
+     * Operations that are not listed are not run.
+     *
+     * @param value the mix.
+     * @return the weight of every listed operation.
+     */
+    static Map<TaskOperation, Integer> parseMix(String value) {
+        Map<TaskOperation, Integer> mix = new EnumMap<>(TaskOperation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            mix.put(TaskOperation.fromName(parts[0]), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    /**
+     * The parseBudgets method is used to read budgets such as "*.p99=250ms,read.p999=100ms".
+     * A budget of "*" applies to every operation that has no budget of its own for the percentile.
+     *
+     * @param value the budgets.
+     * @return the budget of every operation, by percentile.
+     */
+    static Map<TaskOperation, Map<Double, Duration>> parseBudgets(String value) {
+        Map<Double, Duration> defaults = new HashMap<>();
+        Map<TaskOperation, Map<Double, Duration>> budgets = new EnumMap<>(TaskOperation.class);
+        if (value.isBlank()) {
+            return budgets;
+        }
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            String[] key = parts[0].trim().split("\\.");
+            double percentile = parsePercentile(key[1]);
+            Duration budget = DurationStyle.detectAndParse(parts[1].trim());
+            if ("*".equals(key[0])) {
+                defaults.put(percentile, budget);
+            } else {
+                budgets.computeIfAbsent(TaskOperation.fromName(key[0]), operation -> new HashMap<>())
+                        .put(percentile, budget);
+            }
+        }
+        for (TaskOperation operation : TaskOperation.values()) {
+            Map<Double, Duration> operationBudgets = budgets.computeIfAbsent(operation, o -> new HashMap<>());
+            defaults.forEach(operationBudgets::putIfAbsent);
+        }
+        return budgets;
+    }
+
+    // "p99" is 99.0, "p999" is 99.9
+    private static double parsePercentile(String value) {
+        String digits = value.toLowerCase(Locale.ROOT).replace("p", "");
+        double percentile = Double.parseDouble(digits);
+        while (percentile > 100) {
+            percentile /= 10;
+        }
+        return percentile;
+    }
+}
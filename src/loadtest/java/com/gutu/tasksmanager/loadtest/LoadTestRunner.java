@@ -0,0 +1,385 @@
+package com.gutu.tasksmanager.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gutu.tasksmanager.TasksManagerApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * LoadTestRunner class starts the application against an in-memory H2 database in PostgreSQL mode and replays
+ * a mix of task calls at a fixed rate. Requests are started on schedule whether or not earlier ones have
+ * completed, and every latency is measured from the scheduled start, so a slow server is not hidden by a
+ * driver that waits for it. Latencies are recorded per endpoint in HDR histograms; the run fails when a
+ * latency budget or the error rate budget is exceeded.
+ * <p>
+ * With loadtest.clients set, a fixed number of clients each send their next request as soon as the previous
+ * one completed instead, which measures the throughput the server reaches with that many concurrent clients.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public class LoadTestRunner {
+
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+
+    private static final int SEED_BATCH_SIZE = 500;
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 8192;
+
+    private static final int DEFAULT_ACCEPT_COUNT = 100;
+
+    /**
+     * The DRAIN_TIMEOUT_MINUTES constant is the time the scheduled requests still running at the end may take.
+     */
+    private static final long DRAIN_TIMEOUT_MINUTES = 1;
+
+    private final LoadTestConfig config;
+
+    private final URI baseUri;
+
+    private final HttpClient httpClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final IdPool ids = new IdPool();
+
+    private final Map<TaskOperation, Histogram> latencies = new EnumMap<>(TaskOperation.class);
+
+    private final Map<TaskOperation, LongAdder> errors = new EnumMap<>(TaskOperation.class);
+
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * The unfinished field is the number of scheduled requests that had not completed when the run was stopped.
+     */
+    private final LongAdder unfinished = new LongAdder();
+
+    private final TaskOperation[] schedule;
+
+    LoadTestRunner(LoadTestConfig config, URI baseUri) {
+        this.config = config;
+        this.baseUri = baseUri;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (TaskOperation operation : config.mix().keySet()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new LongAdder());
+        }
+        // One slot per unit of weight, so picking a random slot follows the mix
+        List<TaskOperation> slots = new ArrayList<>();
+        config.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        this.schedule = slots.toArray(TaskOperation[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        if (!config.baseUrl().isBlank()) {
+            System.exit(new LoadTestRunner(config, URI.create(config.baseUrl())).run() ? 0 : 1);
+        }
+        // Passed as arguments, since default properties would lose to the ones of the test profile
+        String[] overrides = {
+                "--server.port=0",
+                "--spring.docker.compose.enabled=false",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///loadtest?options=MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.threads.virtual.enabled=" + config.virtualThreads(),
+                "--server.tomcat.max-connections=" + Math.max(DEFAULT_MAX_CONNECTIONS, config.clients()),
+                "--server.tomcat.accept-count=" + Math.max(DEFAULT_ACCEPT_COUNT, config.clients()),
+                "--logging.level.root=WARN"};
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TasksManagerApplication.class)
+                .profiles(config.reactive() ? new String[]{"reactive", "test"} : new String[]{"test"})
+                .run(Stream.concat(Arrays.stream(overrides), Arrays.stream(args)).toArray(String[]::new));
+        boolean passed;
+        try {
+            URI baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            passed = new LoadTestRunner(config, baseUri).run();
+        } finally {
+            context.close();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * The run method is used to seed the tasks, apply the load, and report the latencies.
+     *
+     * @return true when every budget was met.
+     */
+    boolean run() throws Exception {
+        seedTasks();
+
+        long start = System.nanoTime();
+        long measureStart = start + config.warmup().toNanos();
+        long end = measureStart + config.duration().toNanos();
+        if (config.isClosedLoop()) {
+            runClients(measureStart, end);
+        } else {
+            runSchedule(start, measureStart, end);
+        }
+
+        Map<String, Object> report = report();
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(new File(config.result()), report);
+        System.out.println("Report written to " + config.result());
+        return checkBudgets();
+    }
+
+    private void runSchedule(long start, long measureStart, long end) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency());
+        LongAdder pending = new LongAdder();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        for (long i = 0; ; i++) {
+            long scheduledStart = start + i * intervalNanos;
+            if (scheduledStart >= end) {
+                break;
+            }
+            LockSupport.parkNanos(scheduledStart - System.nanoTime());
+            TaskOperation operation = nextOperation();
+            boolean recorded = scheduledStart >= measureStart;
+            pending.increment();
+            workers.execute(() -> {
+                try {
+                    execute(operation, scheduledStart, recorded);
+                } finally {
+                    pending.decrement();
+                }
+            });
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(DRAIN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+            // Queued and hanging requests are errors, or a stuck server would pass with the requests it answered
+            unfinished.add(pending.sum());
+            workers.shutdownNow();
+            System.out.printf("%d requests did not complete within %d minute after the run%n",
+                    unfinished.sum(), DRAIN_TIMEOUT_MINUTES);
+        }
+    }
+
+    // Every client is a virtual thread, so thousands of them cost the driver little more than their sockets
+    private void runClients(long measureStart, long end) {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.clients(); i++) {
+                clients.execute(() -> {
+                    for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                        execute(nextOperation(), now, now >= measureStart);
+                    }
+                });
+            }
+        }
+    }
+
+    private TaskOperation nextOperation() {
+        return schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+    }
+
+    private void seedTasks() throws IOException, InterruptedException {
+        String task = "{\"title\":\"Seed task\",\"description\":\"Created before the load test\",\"status\":\"TODO\"}";
+        if (config.reactive()) {
+            // The reactive profile has no batch endpoint
+            for (int created = 0; created < config.seedTasks(); created++) {
+                HttpResponse<String> response = httpClient.send(
+                        TaskOperation.CREATE.toRequest(baseUri, 0), HttpResponse.BodyHandlers.ofString());
+                ids.add(objectMapper.readTree(response.body()).path("id").asLong());
+            }
+            return;
+        }
+        for (int created = 0; created < config.seedTasks(); created += SEED_BATCH_SIZE) {
+            int size = Math.min(SEED_BATCH_SIZE, config.seedTasks() - created);
+            String body = "[" + String.join(",", Collections.nCopies(size, task)) + "]";
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/tasks/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            for (JsonNode item : objectMapper.readTree(response.body())) {
+                ids.add(item.path("task").path("id").asLong());
+            }
+        }
+    }
+
+    private void execute(TaskOperation operation, long scheduledStart, boolean recorded) {
+        long id = 0;
+        if (operation.needsTask()) {
+            // A deleted id leaves the pool before the call, so it is not read or updated afterwards
+            id = operation == TaskOperation.DELETE ? ids.removeRandom() : ids.random();
+            if (id == 0) {
+                skipped.increment();
+                return;
+            }
+        }
+        boolean failed;
+        try {
+            HttpResponse<String> response = httpClient.send(operation.toRequest(baseUri, id),
+                    HttpResponse.BodyHandlers.ofString());
+            failed = response.statusCode() >= 400;
+            if (operation == TaskOperation.CREATE && !failed) {
+                ids.add(objectMapper.readTree(response.body()).path("id").asLong());
+            }
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (recorded) {
+            latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledStart));
+            if (failed) {
+                errors.get(operation).increment();
+            }
+        }
+    }
+
+    private Map<String, Object> report() {
+        double seconds = config.duration().toMillis() / 1000.0;
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (config.isClosedLoop()) {
+            report.put("clients", config.clients());
+        } else {
+            report.put("rate", config.rate());
+            report.put("concurrency", config.concurrency());
+        }
+        report.put("virtualThreads", config.virtualThreads());
+        report.put("reactive", config.reactive());
+        report.put("durationSeconds", seconds);
+        report.put("skipped", skipped.sum());
+        report.put("unfinished", unfinished.sum());
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+
+        System.out.printf("%n%-20s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms");
+        latencies.forEach((operation, histogram) -> {
+            long count = histogram.getTotalCount();
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("count", count);
+            endpoint.put("errors", errors.get(operation).sum());
+            endpoint.put("throughput", count / seconds);
+            for (double percentile : PERCENTILES) {
+                endpoint.put(percentileName(percentile) + "Millis", histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            endpoint.put("maxMillis", histogram.getMaxValue() / 1000.0);
+            endpoints.put(operation.getEndpoint(), endpoint);
+
+            System.out.printf("%-20s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.getEndpoint(), count, errors.get(operation).sum(), count / seconds,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(95) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        });
+        report.put("endpoints", endpoints);
+
+        long total = latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        report.put("throughput", total / seconds);
+        System.out.printf("%-20s %8d %17.1f%n", "total", total, total / seconds);
+        return report;
+    }
+
+    private boolean checkBudgets() {
+        List<String> violations = new ArrayList<>();
+        long requests = 0;
+        long failures = 0;
+        for (Map.Entry<TaskOperation, Histogram> entry : latencies.entrySet()) {
+            TaskOperation operation = entry.getKey();
+            Histogram histogram = entry.getValue();
+            requests += histogram.getTotalCount();
+            failures += errors.get(operation).sum();
+            config.budgets().getOrDefault(operation, Map.of()).forEach((percentile, budget) -> {
+                long micros = histogram.getValueAtPercentile(percentile);
+                if (micros > TimeUnit.NANOSECONDS.toMicros(budget.toNanos())) {
+                    violations.add(String.format("%s %s is %.2f ms, budget %d ms", operation.getEndpoint(),
+                            percentileName(percentile), micros / 1000.0, budget.toMillis()));
+                }
+            });
+        }
+        requests += unfinished.sum();
+        failures += unfinished.sum();
+        if (unfinished.sum() > 0) {
+            violations.add(String.format("%d requests did not complete", unfinished.sum()));
+        }
+        double errorRate = requests == 0 ? 0 : (double) failures / requests;
+        if (errorRate > config.maxErrorRate()) {
+            violations.add(String.format("error rate is %.4f, budget %.4f", errorRate, config.maxErrorRate()));
+        }
+        if (requests == 0) {
+            violations.add("no request was recorded");
+        }
+
+        violations.forEach(violation -> System.out.println("BUDGET EXCEEDED: " + violation));
+        if (violations.isEmpty()) {
+            System.out.println("All latency budgets met");
+        }
+        return violations.isEmpty();
+    }
+
+    // 99.9 is "p999"
+    private static String percentileName(double percentile) {
+        String digits = String.valueOf(percentile).replace(".0", "").replace(".", "");
+        return "p" + digits;
+    }
+
+    /**
+     * IdPool class holds the ids of the existing tasks, so calls can pick one at random.
+     */
+    private static final class IdPool {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        synchronized void add(long id) {
+            if (id <= 0) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = id;
+        }
+
+        synchronized long random() {
+            return size == 0 ? 0 : values[ThreadLocalRandom.current().nextInt(size)];
+        }
+
+        synchronized long removeRandom() {
+            if (size == 0) {
+                return 0;
+            }
+            int index = ThreadLocalRandom.current().nextInt(size);
+            long id = values[index];
+            values[index] = values[--size];
+            return id;
+        }
+    }
+}
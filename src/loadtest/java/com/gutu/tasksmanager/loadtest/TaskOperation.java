@@ -0,0 +1,73 @@
+package com.gutu.tasksmanager.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Locale;
+
+/**
+ * TaskOperation enum lists the calls replayed by the load test and builds their requests.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public enum TaskOperation {
+    CREATE("POST /tasks"),
+    READ("GET /tasks/{id}"),
+    UPDATE("PUT /tasks/{id}"),
+    DELETE("DELETE /tasks/{id}"),
+    LIST("GET /tasks");
+
+    private static final String TASK_JSON =
+            "{\"title\":\"Load test task\",\"description\":\"Created by the load test\",\"status\":\"%s\"}";
+
+    private final String endpoint;
+
+    TaskOperation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return the method and path of the endpoint, used in the report.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * The needsTask method tells whether the operation works on an existing task.
+     *
+     * @return true when a task id has to be taken from the pool.
+     */
+    public boolean needsTask() {
+        return this == READ || this == UPDATE || this == DELETE;
+    }
+
+    /**
+     * The toRequest method is used to build the HTTP request of the operation.
+     *
+     * @param baseUri the URI of the application.
+     * @param id the id of the task, ignored by the operations that do not need one.
+     * @return the request.
+     */
+    public HttpRequest toRequest(URI baseUri, long id) {
+        HttpRequest.Builder request = HttpRequest.newBuilder().header("Accept", "application/json");
+        return switch (this) {
+            case CREATE -> request.uri(baseUri.resolve("/tasks"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(TASK_JSON.formatted("TODO")))
+                    .build();
+            case READ -> request.uri(baseUri.resolve("/tasks/" + id)).GET().build();
+            case UPDATE -> request.uri(baseUri.resolve("/tasks/" + id))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(TASK_JSON.formatted("IN_PROGRESS")))
+                    .build();
+            case DELETE -> request.uri(baseUri.resolve("/tasks/" + id)).DELETE().build();
+            case LIST -> request.uri(baseUri.resolve("/tasks?limit=50")).GET().build();
+        };
+    }
+
+    static TaskOperation fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,126 @@
+package com.gutu.tasksmanager.admission;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * AdaptiveConcurrencyLimiter class limits the number of requests in flight, and adapts the limit to the latency
+ * of the requests with an AIMD algorithm. A request that completes within the latency target while the limit is
+ * in use raises the limit by about one per limit requests; a request that exceeds the target or fails with a
+ * server error cuts the limit by the backoff ratio, at most once per latency target, so that one burst of slow
+ * requests counts as a single overload.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyTargetNanos;
+
+    private final double backoffRatio;
+
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * The limit field is the current limit, kept fractional so that additive increases add up; guarded by this.
+     */
+    private double limit;
+
+    /**
+     * The lastBackoff field is the time of the last decrease of the limit, guarded by this.
+     */
+    private long lastBackoff;
+
+    /**
+     * The currentLimit field is the whole part of the limit, read without locking when a request arrives.
+     */
+    private volatile int currentLimit;
+
+    /**
+     * @param initialLimit the limit before any request completed.
+     * @param minLimit the lowest limit.
+     * @param maxLimit the highest limit.
+     * @param latencyTarget the latency above which a request is a sign of overload.
+     * @param backoffRatio the factor the limit is multiplied with on overload.
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyTarget,
+                                      double backoffRatio) {
+        this(initialLimit, minLimit, maxLimit, latencyTarget, backoffRatio, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyTarget,
+                               double backoffRatio, LongSupplier clock) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.clock = clock;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.currentLimit = (int) limit;
+        this.lastBackoff = clock.getAsLong() - latencyTargetNanos;
+    }
+
+    /**
+     * The tryAcquire method is used to admit a request when fewer requests than the limit are in flight.
+     * Every admitted request must be released once it completes.
+     *
+     * @return whether the request is admitted.
+     */
+    public boolean tryAcquire() {
+        int admitted = currentLimit;
+        while (true) {
+            int current = inFlight.get();
+            if (current >= admitted) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The release method is used to complete an admitted request and adapt the limit to its outcome.
+     *
+     * @param latencyNanos the time the request took.
+     * @param failed whether the request failed in a way that points to overload.
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int completedInFlight = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyTargetNanos) {
+                long now = clock.getAsLong();
+                if (now - lastBackoff >= latencyTargetNanos) {
+                    lastBackoff = now;
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                }
+            } else if (completedInFlight * 2 >= limit) {
+                // Only a limit that is actually used is raised, so a quiet period does not inflate it
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            currentLimit = (int) limit;
+        }
+    }
+
+    /**
+     * @return the current limit.
+     */
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    /**
+     * @return the number of admitted requests that have not completed yet.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,170 @@
+package com.gutu.tasksmanager.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AdmissionControlFilter class sheds the task requests that arrive while their limiter is full.
+ * Reads and writes are admitted by separate limiters, so slow writes do not starve the reads. A request
+ * rejected because the server is full is answered at once with 503 and a Retry-After header, so the requests
+ * that are admitted keep their latency instead of queueing for a database connection.
+ * <p>
+ * The long-lived stream and export requests are not limited, as their duration says nothing about the load.
+ * Any other request that goes async keeps its permit until the async processing completes.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /**
+     * The UNLIMITED_PATHS constant is the paths of the long-lived requests, whose latency would only lower the
+     * limits of the short ones.
+     */
+    private static final Set<String> UNLIMITED_PATHS = Set.of("/tasks/stream", "/tasks/export");
+
+    private static final String REJECTED_BODY = "{\"error\":\"The server is overloaded, retry later\"}";
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+
+    private final String retryAfterSeconds;
+
+    private final Counter readRejections;
+
+    private final Counter writeRejections;
+
+    /**
+     * @param readLimiter the limiter of the GET and HEAD requests.
+     * @param writeLimiter the limiter of the other requests.
+     * @param retryAfter the time a rejected client is asked to wait, rounded up to whole seconds.
+     * @param meterRegistry the registry of the limit and rejection metrics.
+     */
+    public AdmissionControlFilter(AdaptiveConcurrencyLimiter readLimiter, AdaptiveConcurrencyLimiter writeLimiter,
+                                  Duration retryAfter, MeterRegistry meterRegistry) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.retryAfterSeconds = Long.toString(Math.max(1, retryAfter.plusMillis(999).toSeconds()));
+        this.readRejections = register(meterRegistry, "read", readLimiter);
+        this.writeRejections = register(meterRegistry, "write", writeLimiter);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return UNLIMITED_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        AdaptiveConcurrencyLimiter limiter = read ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            (read ? readRejections : writeRejections).increment();
+            reject(response);
+            return;
+        }
+        Permit permit = new Permit(limiter, response, System.nanoTime());
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // The response is written after this thread returns, so the permit is held until it completes
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release(failed);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(REJECTED_BODY);
+    }
+
+    private static Counter register(MeterRegistry meterRegistry, String kind, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("tasks.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Requests admitted at once")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        Gauge.builder("tasks.admission.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Admitted requests that have not completed")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        return Counter.builder("tasks.admission.rejected")
+                .description("Requests rejected because the limit was reached")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Permit class is an admitted request, released once when the request completes, on the request thread or,
+     * for an async request, by the container when the async processing completes, fails or times out.
+     */
+    private class Permit implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+
+        private final HttpServletResponse response;
+
+        private final long start;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(AdaptiveConcurrencyLimiter limiter, HttpServletResponse response, long start) {
+            this.limiter = limiter;
+            this.response = response;
+            this.start = start;
+        }
+
+        void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(System.nanoTime() - start, failed);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // The listener is registered again on the new async cycle
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
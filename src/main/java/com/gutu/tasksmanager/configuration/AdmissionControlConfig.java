@@ -0,0 +1,89 @@
+package com.gutu.tasksmanager.configuration;
+
+import com.gutu.tasksmanager.admission.AdaptiveConcurrencyLimiter;
+import com.gutu.tasksmanager.admission.AdmissionControlFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * AdmissionControlConfig class is used to put the adaptive concurrency limiters in front of the task endpoints,
+ * which is turned on by tasks.admission.enabled=true.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "tasks.admission.enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    /**
+     * The admissionControlFilter method is used to register the filter that sheds the task requests beyond
+     * the limits. It runs before the other filters, so a rejected request costs as little as possible.
+     *
+     * @param readLimiter the limiter of the reads.
+     * @param writeLimiter the limiter of the writes.
+     * @param retryAfter the time a rejected client is asked to wait.
+     * @param meterRegistry the registry of the limit and rejection metrics.
+     * @return the registration of the filter on the task endpoints.
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdaptiveConcurrencyLimiter readLimiter,
+            AdaptiveConcurrencyLimiter writeLimiter,
+            @Value("${tasks.admission.retry-after:1s}") Duration retryAfter,
+            MeterRegistry meterRegistry) {
+        var registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(readLimiter, writeLimiter, retryAfter, meterRegistry));
+        registration.addUrlPatterns("/tasks", "/tasks/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * The readLimiter method is used to create the limiter of the GET and HEAD requests.
+     *
+     * @param initialLimit the limit before any request completed.
+     * @param minLimit the lowest limit.
+     * @param maxLimit the highest limit.
+     * @param latencyTarget the latency above which a request is a sign of overload.
+     * @param backoffRatio the factor the limit is multiplied with on overload.
+     * @return the limiter of the reads.
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter readLimiter(@Value("${tasks.admission.read.initial-limit:50}") int initialLimit,
+                                                  @Value("${tasks.admission.read.min-limit:4}") int minLimit,
+                                                  @Value("${tasks.admission.read.max-limit:500}") int maxLimit,
+                                                  @Value("${tasks.admission.read.latency-target:100ms}") Duration latencyTarget,
+                                                  @Value("${tasks.admission.backoff-ratio:0.9}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyTarget, backoffRatio);
+    }
+
+    /**
+     * The writeLimiter method is used to create the limiter of the requests that change tasks.
+     *
+     * @param initialLimit the limit before any request completed.
+     * @param minLimit the lowest limit.
+     * @param maxLimit the highest limit.
+     * @param latencyTarget the latency above which a request is a sign of overload.
+     * @param backoffRatio the factor the limit is multiplied with on overload.
+     * @return the limiter of the writes.
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter writeLimiter(@Value("${tasks.admission.write.initial-limit:20}") int initialLimit,
+                                                   @Value("${tasks.admission.write.min-limit:2}") int minLimit,
+                                                   @Value("${tasks.admission.write.max-limit:200}") int maxLimit,
+                                                   @Value("${tasks.admission.write.latency-target:250ms}") Duration latencyTarget,
+                                                   @Value("${tasks.admission.backoff-ratio:0.9}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyTarget, backoffRatio);
+    }
+}
@@ -0,0 +1,30 @@
+package com.gutu.tasksmanager.configuration;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * ReactiveServerConfig class is used to configure the web server of the reactive profile.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveServerConfig {
+
+    /**
+     * The nettyReactiveWebServerFactory method is used to serve the reactive profile on Reactor Netty.
+     * Spring Boot would pick Tomcat, which the servlet stack keeps on the classpath, and run WebFlux
+     * on top of the servlet API instead.
+     *
+     * @return the factory of the Netty server.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,151 @@
+package com.gutu.tasksmanager.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * ReplicaDataSource class hands out connections to read replicas in round-robin order.
+ * A replica that fails to give a connection or to pass the periodic health check is ejected and skipped
+ * until a later check succeeds; when no replica is healthy, the connections come from the primary.
+ * A replica only starts receiving connections after its first successful check.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final int checkTimeoutSeconds;
+
+    private final ScheduledExecutorService healthChecks;
+
+    /**
+     * @param primary the data source used when no replica is healthy.
+     * @param replicas the data sources of the replicas, closed together with this data source.
+     * @param checkInterval the time between two health checks of the replicas.
+     */
+    public ReplicaDataSource(DataSource primary, List<DataSource> replicas, Duration checkInterval) {
+        this.primary = primary;
+        this.replicas = IntStream.range(0, replicas.size())
+                .mapToObj(index -> new Replica(replicas.get(index), index + 1))
+                .toList();
+        this.checkTimeoutSeconds = (int) Math.max(1, checkInterval.toSeconds());
+        this.healthChecks = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replica-health-check")
+                .daemon().factory());
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return borrow(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return borrow(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * The getHealthyReplicaCount method is used to read how many replicas currently receive connections.
+     *
+     * @return the number of healthy replicas.
+     */
+    public int getHealthyReplicaCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    /**
+     * The checkHealth method is used to validate a connection of every replica, ejecting the replicas that fail
+     * and bringing back the ones that recovered.
+     */
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(checkTimeoutSeconds)) {
+                    throw new SQLException("Connection is not valid");
+                }
+                if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Read replica {} is healthy", replica.index);
+                }
+            } catch (SQLException | RuntimeException e) {
+                eject(replica, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        healthChecks.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // Starts at the next replica in turn, so the connections are spread evenly over the healthy replicas
+    private Connection borrow(ConnectionSupplier supplier) throws SQLException {
+        int size = replicas.size();
+        int start = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                try {
+                    return supplier.get(replica.dataSource);
+                } catch (SQLException e) {
+                    eject(replica, e);
+                }
+            }
+        }
+        return supplier.get(primary);
+    }
+
+    private void eject(Replica replica, Exception cause) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Read replica {} is ejected until it passes a health check: {}", replica.index, cause.getMessage());
+        }
+    }
+
+    /**
+     * Replica class holds the data source of one replica and whether it receives connections.
+     */
+    private static final class Replica {
+
+        private final DataSource dataSource;
+
+        private final int index;
+
+        private volatile boolean healthy;
+
+        private Replica(DataSource dataSource, int index) {
+            this.dataSource = dataSource;
+            this.index = index;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,105 @@
+package com.gutu.tasksmanager.configuration;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReplicaRoutingConfig class is used to send the read-only transactions to read replicas,
+ * which is turned on by tasks.replicas.enabled=true.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Configuration
+@ConditionalOnProperty(name = "tasks.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    /**
+     * The primaryDataSource method is used to create the connection pool of the primary database,
+     * from the spring.datasource properties.
+     *
+     * @param properties the spring.datasource properties.
+     * @return the connection pool of the primary.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * The replicaDataSource method is used to create a connection pool for every replica.
+     * The pools take their settings from the pool of the primary, and do not fail the startup
+     * when a replica is down; it is only used once it passes a health check.
+     *
+     * @param primaryDataSource the data source of the primary.
+     * @param urls the JDBC URLs of the replicas.
+     * @param username the user of the replicas, or empty to use the one of the primary.
+     * @param password the password of the replicas, used together with the user.
+     * @param checkInterval the time between two health checks of the replicas.
+     * @return the data source that balances the connections over the replicas.
+     * @throws SQLException when the pool of the primary cannot be reached.
+     */
+    @Bean
+    public ReplicaDataSource replicaDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                               @Value("${tasks.replicas.urls}") String[] urls,
+                                               @Value("${tasks.replicas.username:}") String username,
+                                               @Value("${tasks.replicas.password:}") String password,
+                                               @Value("${tasks.replicas.check-interval:5s}") Duration checkInterval)
+            throws SQLException {
+        if (urls.length == 0) {
+            throw new IllegalStateException("tasks.replicas.urls must list at least one replica");
+        }
+        // The primary may already be wrapped, e.g. by the BoundedDataSource of the virtual thread mode
+        HikariDataSource primaryPool = primaryDataSource.unwrap(HikariDataSource.class);
+        List<DataSource> replicas = new ArrayList<>(urls.length);
+        for (int i = 0; i < urls.length; i++) {
+            var config = new HikariConfig();
+            primaryPool.copyStateTo(config);
+            config.setJdbcUrl(urls[i].trim());
+            config.setPoolName("replica-" + (i + 1));
+            config.setInitializationFailTimeout(-1);
+            if (StringUtils.hasText(username)) {
+                config.setUsername(username);
+                config.setPassword(password);
+            }
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, checkInterval);
+    }
+
+    /**
+     * The dataSource method is used to create the data source of the application. A connection is only taken
+     * when the first statement runs, which is after the transaction has marked it read-only; read-only
+     * connections are then taken from the replicas and all the other ones from the primary.
+     *
+     * @param primaryDataSource the data source of the primary.
+     * @param replicaDataSource the data source of the replicas.
+     * @return the data source that routes the connections by the read-only flag.
+     */
+    @Bean
+    @Primary
+    public LazyConnectionDataSourceProxy dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                    ReplicaDataSource replicaDataSource) {
+        var dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
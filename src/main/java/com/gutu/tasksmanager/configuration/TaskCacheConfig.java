@@ -0,0 +1,52 @@
+package com.gutu.tasksmanager.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * TaskCacheConfig class is used to configure the in-process cache of tasks read by id.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Configuration
+@ConditionalOnProperty(name = "tasks.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskCacheConfig {
+
+    /**
+     * The TASK_CACHE_NAME constant is the name under which the cache metrics are published.
+     */
+    public static final String TASK_CACHE_NAME = "tasks";
+
+    /**
+     * The taskCache method is used to create the cache of tasks by id.
+     * The cache is bounded by size and time to live, evicts with the W-TinyLFU policy of Caffeine
+     * and publishes its hit, miss and eviction statistics as cache metrics.
+     *
+     * @param maximumSize the maximum number of cached tasks.
+     * @param expireAfterWrite the time after which a cached task is reloaded.
+     * @param meterRegistry the registry of the cache metrics.
+     * @return the cache of tasks by id.
+     */
+    @Bean
+    public Cache<Long, TaskWithDetails> taskCache(@Value("${tasks.cache.maximum-size:10000}") long maximumSize,
+                                                  @Value("${tasks.cache.expire-after-write:5m}") Duration expireAfterWrite,
+                                                  MeterRegistry meterRegistry) {
+        Cache<Long, TaskWithDetails> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, TASK_CACHE_NAME);
+    }
+}
@@ -0,0 +1,53 @@
+package com.gutu.tasksmanager.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * VirtualThreadConfig class is used to configure the application when requests are served on virtual threads,
+ * which is turned on by spring.threads.virtual.enabled=true.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    /**
+     * The DEFAULT_POOL_SIZE constant is the pool size Hikari falls back to when none is configured.
+     */
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * The boundedDataSourcePostProcessor method is used to put a BoundedDataSource in front of the connection pool.
+     * Virtual threads do not cap the number of requests in flight the way the Tomcat thread pool did, so the
+     * requests that need the database wait for one of as many permits as the pool has connections, in arrival
+     * order and for at most the connection timeout of the pool. An unset pool size is only resolved by Hikari
+     * when the pool starts, so its default is assumed here.
+     *
+     * @return the post processor that wraps the Hikari data source.
+     */
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    int poolSize = dataSource.getMaximumPoolSize() > 0
+                            ? dataSource.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+                    return new BoundedDataSource(dataSource, poolSize,
+                            Duration.ofMillis(dataSource.getConnectionTimeout()));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package com.gutu.tasksmanager.controller;
+
+import com.gutu.tasksmanager.exception.PreconditionFailedException;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.service.IReactiveTaskService;
+import com.gutu.tasksmanager.utils.TaskETags;
+import com.gutu.tasksmanager.utils.TaskRequestValidator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveTaskController class is the WebFlux counterpart of TaskController, active with the reactive profile.
+ * It serves the create, read, list, update and delete calls of the task API without blocking a thread
+ * while the database works.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@RestController
+@RequestMapping("/tasks")
+@Profile("reactive")
+public class ReactiveTaskController {
+
+    /**
+     * The taskService field is used to interact with the reactive task service.
+     */
+    private final IReactiveTaskService taskService;
+
+    /**
+     * The taskRequestValidator field is used to validate task requests.
+     */
+    private final TaskRequestValidator taskRequestValidator;
+
+    public ReactiveTaskController(IReactiveTaskService taskService, TaskRequestValidator taskRequestValidator) {
+        this.taskService = taskService;
+        this.taskRequestValidator = taskRequestValidator;
+    }
+
+    /**
+     * The createTask method is used to create a new task.
+     *
+     * @param request the request object that contains the task details.
+     * @return the response object that contains the created task details.
+     */
+    @PostMapping
+    public Mono<ResponseEntity<TaskWithDetails>> createTask(@RequestBody CreateUpdateTaskRequest request) {
+        taskRequestValidator.validateCreateRequest(request);
+        return taskService.createTask(request)
+                .map(task -> ResponseEntity.status(201).eTag(TaskETags.forTask(task)).body(task));
+    }
+
+    /**
+     * The getTasks method is used to stream the tasks in the order of their ids.
+     * The tasks are written as a JSON array, or as newline delimited JSON when the client accepts it,
+     * and are read from the database only as fast as the client consumes them.
+     *
+     * @param status the status of the tasks.
+     * @param limit the maximum number of tasks.
+     * @return the stream of tasks.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<TaskWithDetails> getTasks(@RequestParam(required = false) String status,
+                                          @RequestParam(required = false) Integer limit) {
+        taskRequestValidator.validateListRequest(limit, status, null, null, null, null);
+        return taskService.getTasks(status == null ? null : SimpleTask.StatusEnum.fromValue(status), limit);
+    }
+
+    /**
+     * The getTaskById method is used to get a task by its id.
+     *
+     * @param id the task id.
+     * @return the response object that contains the task details.
+     */
+    @GetMapping(value = "/{id}")
+    public Mono<ResponseEntity<TaskWithDetails>> getTaskById(@PathVariable Long id) {
+        return taskService.getTaskById(id)
+                .map(task -> ResponseEntity.ok().eTag(TaskETags.forTask(task)).body(task))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * The updateTask method is used to update a task.
+     * When If-Match is given, the task is only updated if it still has the version of that ETag.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the task details.
+     * @param ifMatch the ETag the update is based on, or null for an unconditional update.
+     * @return the response object that contains the updated task details.
+     */
+    @PutMapping(value = "/{id}")
+    public Mono<ResponseEntity<TaskWithDetails>> updateTask(@PathVariable Long id,
+                                                            @RequestBody CreateUpdateTaskRequest request,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        taskRequestValidator.validateUpdateRequest(id, request);
+        return taskService.updateTask(id, request, resolveExpectedVersion(id, ifMatch))
+                .map(task -> ResponseEntity.ok().eTag(TaskETags.forTask(task)).body(task))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * The deleteTask method is used to delete a task.
+     *
+     * @param id the task id.
+     * @return the response object that contains the status of the operation.
+     */
+    @DeleteMapping(value = "/{id}")
+    public Mono<ResponseEntity<Void>> deleteTask(@PathVariable Long id) {
+        return taskService.deleteTask(id)
+                .map(deleted -> deleted ? ResponseEntity.noContent().<Void>build() : ResponseEntity.notFound().<Void>build());
+    }
+
+    /**
+     * The resolveExpectedVersion method is used to read the task version a conditional write is based on.
+     *
+     * @param id the task id.
+     * @param ifMatch the If-Match header value.
+     * @return the expected version, or null when the write is unconditional.
+     */
+    private Long resolveExpectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Long expectedVersion = TaskETags.parseVersion(ifMatch, id);
+        if (expectedVersion == null) {
+            throw new PreconditionFailedException("If-Match does not match the current version of the task");
+        }
+        return expectedVersion;
+    }
+}
@@ -1,12 +1,43 @@
 package com.gutu.tasksmanager.controller;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutu.tasksmanager.exception.PreconditionFailedException;
+import com.gutu.tasksmanager.exception.ValidationException;
+import com.gutu.tasksmanager.models.model.BatchItemResult;
+import com.gutu.tasksmanager.models.model.BulkStatusRequest;
+import com.gutu.tasksmanager.models.model.BulkStatusResult;
 import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.PatchTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskChanges;
+import com.gutu.tasksmanager.models.model.TaskStats;
+import com.gutu.tasksmanager.models.model.TaskPage;
 import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.repository.specification.TaskFilter;
+import com.gutu.tasksmanager.repository.specification.TaskSort;
 import com.gutu.tasksmanager.service.ITaskService;
+import com.gutu.tasksmanager.service.impl.GroupCommitTaskWriter;
+import com.gutu.tasksmanager.service.impl.IdempotencyService;
+import com.gutu.tasksmanager.service.impl.TaskStreamService;
+import com.gutu.tasksmanager.utils.TaskETags;
 import com.gutu.tasksmanager.utils.TaskRequestValidator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -18,6 +49,7 @@ import java.util.List;
  */
 @RestController
 @RequestMapping("/tasks")
+@Profile("!reactive")
 public class TaskController {
 
     /**
@@ -30,57 +62,347 @@ public class TaskController {
      */
     private final TaskRequestValidator taskRequestValidator;
 
-    public TaskController(ITaskService taskService, TaskRequestValidator taskRequestValidator) {
+    /**
+     * The objectMapper field is used to write the exported tasks as JSON lines and to read the replayed batch results.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The taskStreamService field is used to subscribe to the committed task events.
+     */
+    private final TaskStreamService taskStreamService;
+
+    /**
+     * The groupCommitTaskWriter field is used to create single tasks in groups, or is null when group commit is off.
+     */
+    private final GroupCommitTaskWriter groupCommitTaskWriter;
+
+    /**
+     * The idempotencyService field is used to run the writes sent with an Idempotency-Key once per key.
+     */
+    private final IdempotencyService idempotencyService;
+
+    /**
+     * The IDEMPOTENCY_KEY_HEADER constant is the header that makes a retried write return the original response.
+     */
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /**
+     * The EXPORT_FLUSH_INTERVAL constant is the number of exported tasks written between two flushes.
+     */
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
+    public TaskController(ITaskService taskService, TaskRequestValidator taskRequestValidator, ObjectMapper objectMapper,
+                          TaskStreamService taskStreamService, ObjectProvider<GroupCommitTaskWriter> groupCommitTaskWriter,
+                          IdempotencyService idempotencyService) {
         this.taskService = taskService;
         this.taskRequestValidator = taskRequestValidator;
+        this.objectMapper = objectMapper;
+        this.taskStreamService = taskStreamService;
+        this.groupCommitTaskWriter = groupCommitTaskWriter.getIfAvailable();
+        this.idempotencyService = idempotencyService;
     }
 
     /**
      * The createTask method is used to create a new task.
+     * With group commit on, the task is created in one transaction with the tasks of concurrent requests.
+     * With an Idempotency-Key, the task is created in the transaction that claims the key instead, and a retry
+     * with the same key gets the task created the first time.
      *
      * @param request the request object that contains the task details.
+     * @param idempotencyKey the key of the write, or null when retries are not deduplicated.
      * @return the response object that contains the created task details.
      */
     @PostMapping
-    public ResponseEntity<TaskWithDetails> createTask(@RequestBody CreateUpdateTaskRequest request) {
+    public ResponseEntity<TaskWithDetails> createTask(@RequestBody CreateUpdateTaskRequest request,
+                                                      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                      String idempotencyKey) {
         taskRequestValidator.validateCreateRequest(request);
-        return ResponseEntity.status(201).body(taskService.createTask(request));
+        taskRequestValidator.validateIdempotencyKey(idempotencyKey);
+        TaskWithDetails task;
+        if (idempotencyKey != null) {
+            task = idempotencyService.execute(idempotencyKey, "POST /tasks", request, TaskWithDetails.class,
+                    () -> taskService.createTask(request));
+        } else {
+            task = groupCommitTaskWriter != null
+                    ? groupCommitTaskWriter.createTask(request) : taskService.createTask(request);
+        }
+        return ResponseEntity.status(201).eTag(TaskETags.forTask(task)).body(task);
     }
 
     /**
-     * The getAllTasks method is used to get all tasks.
+     * The createTasks method is used to create many tasks at once.
+     * Every task is validated on its own; the valid ones are created together and the invalid ones are reported.
      *
-     * @return the response object that contains the list of tasks.
+     * @param requests the request objects that contain the task details.
+     * @param idempotencyKey the key of the write, or null when retries are not deduplicated.
+     * @return the response object that contains the result of every item, in the order of the request.
+     */
+    @PostMapping(value = "/batch")
+    public ResponseEntity<List<BatchItemResult>> createTasks(@RequestBody List<CreateUpdateTaskRequest> requests,
+                                                             @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                             String idempotencyKey) {
+        taskRequestValidator.validateBatchCreateRequest(requests);
+        taskRequestValidator.validateIdempotencyKey(idempotencyKey);
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(createValidTasks(requests));
+        }
+        JavaType resultsType = objectMapper.getTypeFactory().constructCollectionType(List.class, BatchItemResult.class);
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "POST /tasks/batch", requests, resultsType,
+                () -> createValidTasks(requests)));
+    }
+
+    /**
+     * The createValidTasks method is used to create the valid tasks of a batch and report the invalid ones.
+     *
+     * @param requests the request objects that contain the task details.
+     * @return the result of every item, in the order of the request.
+     */
+    private List<BatchItemResult> createValidTasks(List<CreateUpdateTaskRequest> requests) {
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        List<CreateUpdateTaskRequest> valid = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            var result = new BatchItemResult();
+            result.setIndex(i);
+            try {
+                taskRequestValidator.validateCreateRequest(requests.get(i));
+                valid.add(requests.get(i));
+                result.setStatus(BatchItemResult.StatusEnum.CREATED);
+            } catch (ValidationException e) {
+                result.setStatus(BatchItemResult.StatusEnum.FAILED);
+                result.setError(e.getMessage());
+            }
+            results.add(result);
+        }
+
+        List<TaskWithDetails> created = valid.isEmpty() ? List.of() : taskService.createTasks(valid);
+        int next = 0;
+        for (BatchItemResult result : results) {
+            if (result.getStatus() == BatchItemResult.StatusEnum.CREATED) {
+                result.setTask(created.get(next++));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The getAllTasks method is used to get a page of tasks, or all tasks when the client opts in.
+     * The page can be filtered by status or to the active tasks and by creation and update time ranges,
+     * and sorted by id, creation or update time. The response carries an ETag built from the ids and versions
+     * of the tasks it lists, and 304 is returned without serializing them when it matches If-None-Match.
+     *
+     * @param cursor the opaque cursor of the page, or null for the first page.
+     * @param limit the requested page size.
+     * @param status the status of the tasks.
+     * @param active whether only the tasks that are not completed are listed.
+     * @param createdFrom the earliest creation timestamp, inclusive.
+     * @param createdTo the latest creation timestamp, exclusive.
+     * @param updatedFrom the earliest update timestamp, inclusive.
+     * @param updatedTo the latest update timestamp, exclusive.
+     * @param sort the column to sort by, prefixed with "-" for a descending order.
+     * @param unpaged whether the whole list of tasks should be returned as a plain array, without filters.
+     * @param webRequest the current request, used to answer If-None-Match.
+     * @return the response object that contains the page of tasks or the list of all tasks.
      */
     @GetMapping
-    public ResponseEntity<List<TaskWithDetails>> getAllTasks() {
-        return ResponseEntity.ok(taskService.getAllTasks());
+    public ResponseEntity<?> getAllTasks(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String status,
+                                         @RequestParam(defaultValue = "false") boolean active,
+                                         @RequestParam(name = "created_from", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime createdFrom,
+                                         @RequestParam(name = "created_to", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime createdTo,
+                                         @RequestParam(name = "updated_from", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime updatedFrom,
+                                         @RequestParam(name = "updated_to", required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime updatedTo,
+                                         @RequestParam(required = false) String sort,
+                                         @RequestParam(defaultValue = "false") boolean unpaged,
+                                         WebRequest webRequest) {
+        TaskFilter filter = null;
+        if (!unpaged) {
+            taskRequestValidator.validateListRequest(limit, status, createdFrom, createdTo, updatedFrom, updatedTo);
+            filter = new TaskFilter(status == null ? null : SimpleTask.StatusEnum.fromValue(status), active,
+                    createdFrom, createdTo, updatedFrom, updatedTo, TaskSort.fromParameter(sort));
+        }
+        Object body;
+        String eTag;
+        if (unpaged) {
+            List<TaskWithDetails> tasks = taskService.getAllTasks();
+            body = tasks;
+            eTag = TaskETags.forTaskList(tasks, null);
+        } else {
+            TaskPage page = taskService.getTasksPage(filter, cursor, limit);
+            body = page;
+            eTag = TaskETags.forTaskList(page.getItems(), page.getNext());
+        }
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(body);
+    }
+
+    /**
+     * The searchTasks method is used to find the tasks whose title or description match the given keywords.
+     *
+     * @param q the keywords.
+     * @param limit the maximum number of tasks.
+     * @return the response object that contains the matching tasks, best matches first.
+     */
+    @GetMapping(value = "/search")
+    public ResponseEntity<List<TaskWithDetails>> searchTasks(@RequestParam(required = false) String q,
+                                                             @RequestParam(required = false) Integer limit) {
+        taskRequestValidator.validateSearchRequest(q, limit);
+        return ResponseEntity.ok(taskService.searchTasks(q, limit));
+    }
+
+    /**
+     * The getChanges method is used to get the tasks created, updated or deleted since the previous sync.
+     *
+     * @param since the opaque cursor returned by the previous sync, or null to read the feed from the start.
+     * @param limit the maximum number of changes.
+     * @return the response object that contains the changes and the cursor of the next sync.
+     */
+    @GetMapping(value = "/changes")
+    public ResponseEntity<TaskChanges> getChanges(@RequestParam(required = false) String since,
+                                                  @RequestParam(required = false) Integer limit) {
+        taskRequestValidator.validateChangesRequest(limit);
+        return ResponseEntity.ok(taskService.getChanges(since, limit));
+    }
+
+    /**
+     * The streamTasks method is used to push the task changes as Server-Sent Events once they are committed.
+     * The request is asynchronous, so an idle subscriber does not hold a request thread.
+     *
+     * @param lastEventId the id of the last event received before reconnecting, or null for a new subscription.
+     * @return the emitter of the stream.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTasks(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return taskStreamService.subscribe(lastEventId);
+    }
+
+    /**
+     * The exportTasks method is used to stream all tasks as newline delimited JSON.
+     * Every task is written to the response as soon as it is read from the database.
+     *
+     * @return the response object that streams the tasks.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTasks() {
+        StreamingResponseBody body = outputStream -> {
+            int[] written = {0};
+            try {
+                taskService.exportTasks(task -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(task));
+                        outputStream.write('\n');
+                        if (++written[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                            outputStream.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * The getTaskStats method is used to get the number of tasks per status.
+     *
+     * @return the response object that contains the task counts.
+     */
+    @GetMapping(value = "/stats")
+    public ResponseEntity<TaskStats> getTaskStats() {
+        return ResponseEntity.ok(taskService.getTaskStats());
     }
 
     /**
      * The getTaskById method is used to get a task by its id.
+     * The response carries an ETag built from the task id and its version. When If-None-Match is sent, the
+     * ETag is computed from the version alone, and 304 is returned without loading the task when it matches.
      *
      * @param id the task id.
+     * @param webRequest the request, used to evaluate If-None-Match.
      * @return the response object that contains the task details.
      */
     @GetMapping(value = "/{id}")
-    public ResponseEntity<TaskWithDetails> getTaskById(@PathVariable Long id) {
+    public ResponseEntity<TaskWithDetails> getTaskById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String eTag = taskService.getTaskETag(id);
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
         TaskWithDetails task = taskService.getTaskById(id);
-        return task != null ? ResponseEntity.ok(task) : ResponseEntity.notFound().build();
+        return task != null ? ResponseEntity.ok().eTag(TaskETags.forTask(task)).body(task) : ResponseEntity.notFound().build();
     }
 
     /**
      * The updateTask method is used to update a task.
+     * When If-Match is given, the task is only updated if it still has the version of that ETag.
      *
      * @param id the task id.
      * @param request the request object that contains the task details.
+     * @param ifMatch the ETag the update is based on, or null for an unconditional update.
      * @return the response object that contains the updated task details.
      */
     @PutMapping(value = "/{id}")
-    public ResponseEntity<TaskWithDetails> updateTask(@PathVariable Long id, @RequestBody CreateUpdateTaskRequest request) {
+    public ResponseEntity<TaskWithDetails> updateTask(@PathVariable Long id, @RequestBody CreateUpdateTaskRequest request,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         taskRequestValidator.validateUpdateRequest(id, request);
-        TaskWithDetails task = taskService.updateTask(id, request);
-        return task != null ? ResponseEntity.ok(task) : ResponseEntity.notFound().build();
+        Long expectedVersion = resolveExpectedVersion(id, ifMatch);
+        TaskWithDetails task = expectedVersion == null
+                ? taskService.updateTask(id, request)
+                : taskService.updateTask(id, request, expectedVersion);
+        return task != null ? ResponseEntity.ok().eTag(TaskETags.forTask(task)).body(task) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * The patchTask method is used to change only the supplied fields of a task.
+     * When If-Match is given, the task is only updated if it still has the version of that ETag.
+     * With an Idempotency-Key, a retry with the same key gets the task as the first patch left it.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the fields to change.
+     * @param ifMatch the ETag the update is based on, or null for an unconditional update.
+     * @param idempotencyKey the key of the write, or null when retries are not deduplicated.
+     * @return the response object that contains the updated task details.
+     */
+    @PatchMapping(value = "/{id}")
+    public ResponseEntity<TaskWithDetails> patchTask(@PathVariable Long id, @RequestBody PatchTaskRequest request,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                     @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                     String idempotencyKey) {
+        taskRequestValidator.validatePatchRequest(id, request);
+        taskRequestValidator.validateIdempotencyKey(idempotencyKey);
+        Long expectedVersion = resolveExpectedVersion(id, ifMatch);
+        TaskWithDetails task = idempotencyKey == null
+                ? taskService.patchTask(id, request, expectedVersion)
+                : idempotencyService.execute(idempotencyKey, "PATCH /tasks/" + id, ifMatch, request,
+                        TaskWithDetails.class,
+                        () -> taskService.patchTask(id, request, expectedVersion));
+        return task != null ? ResponseEntity.ok().eTag(TaskETags.forTask(task)).body(task) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * The updateStatus method is used to move many tasks to one status.
+     *
+     * @param request the request object that contains the task ids and the new status.
+     * @return the response object that contains the number of tasks whose status changed.
+     */
+    @PostMapping(value = "/status")
+    public ResponseEntity<BulkStatusResult> updateStatus(@RequestBody BulkStatusRequest request) {
+        taskRequestValidator.validateBulkStatusRequest(request);
+        var result = new BulkStatusResult();
+        result.setUpdated(taskService.updateStatus(request.getIds(), SimpleTask.StatusEnum.fromValue(request.getStatus())));
+        return ResponseEntity.ok(result);
     }
 
     /**
@@ -93,4 +415,22 @@ public class TaskController {
     public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
         return taskService.deleteTask(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
+
+    /**
+     * The resolveExpectedVersion method is used to read the task version a conditional write is based on.
+     *
+     * @param id the task id.
+     * @param ifMatch the If-Match header value.
+     * @return the expected version, or null when the write is unconditional.
+     */
+    private Long resolveExpectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Long expectedVersion = TaskETags.parseVersion(ifMatch, id);
+        if (expectedVersion == null) {
+            throw new PreconditionFailedException("If-Match does not match the current version of the task");
+        }
+        return expectedVersion;
+    }
 }
@@ -2,8 +2,6 @@ package com.gutu.tasksmanager.entity;
 
 import com.gutu.tasksmanager.models.model.SimpleTask;
 import jakarta.persistence.*;
-import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.OffsetDateTime;
 
@@ -19,8 +17,13 @@ import java.time.OffsetDateTime;
 @Table(name = "tasks")
 public class TaskEntity {
 
+    /**
+     * The id is taken from a pooled sequence, so Hibernate can assign it before the insert
+     * and group the inserts of many tasks into JDBC batches.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -33,14 +36,23 @@ public class TaskEntity {
     @Column(nullable = false)
     private SimpleTask.StatusEnum status;
 
-    @CreationTimestamp
+    /**
+     * The timestamps are written by the clock of the database in the native inserts and updates,
+     * so the change feed orders every change on one clock.
+     */
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
-    @UpdateTimestamp
     @Column(name = "updated_at")
     private OffsetDateTime updatedAt;
 
+    /**
+     * The version is incremented on every update and is used for optimistic concurrency control.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -88,4 +100,12 @@ public class TaskEntity {
     public void setUpdatedAt(OffsetDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
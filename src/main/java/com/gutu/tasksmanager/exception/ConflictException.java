@@ -0,0 +1,18 @@
+package com.gutu.tasksmanager.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * ConflictException class is used when a request collides with a concurrent request made with the same
+ * Idempotency-Key.
+ *
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
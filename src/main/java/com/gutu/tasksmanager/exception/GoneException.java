@@ -0,0 +1,18 @@
+package com.gutu.tasksmanager.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * GoneException class is used when a change feed cursor is older than the retained tombstones, so the changes
+ * after it can no longer be listed completely.
+ *
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@ResponseStatus(HttpStatus.GONE)
+public class GoneException extends RuntimeException {
+    public GoneException(String message) {
+        super(message);
+    }
+}
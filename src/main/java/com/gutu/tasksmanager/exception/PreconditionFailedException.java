@@ -0,0 +1,17 @@
+package com.gutu.tasksmanager.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * PreconditionFailedException class is used when a conditional write does not match the current state of a task.
+ *
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
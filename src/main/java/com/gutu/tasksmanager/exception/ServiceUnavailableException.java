@@ -0,0 +1,18 @@
+package com.gutu.tasksmanager.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * ServiceUnavailableException class is used when a request cannot be taken on because the server is overloaded
+ * or shutting down.
+ *
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
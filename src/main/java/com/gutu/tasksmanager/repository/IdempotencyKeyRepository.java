@@ -0,0 +1,87 @@
+package com.gutu.tasksmanager.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * IdempotencyKeyRepository class stores the Idempotency-Key of every write in the idempotency_keys table,
+ * together with the response that is replayed when the key is used again.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Repository
+@Profile("!reactive")
+public class IdempotencyKeyRepository {
+
+    private final EntityManager entityManager;
+
+    public IdempotencyKeyRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * The find method is used to read the stored outcome of a key.
+     *
+     * @param key the idempotency key.
+     * @return the stored outcome, or empty when the key is unknown.
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<IdempotencyRecord> find(String key) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT request_hash, response FROM idempotency_keys WHERE idempotency_key = :key")
+                .setParameter("key", key)
+                .unwrap(NativeQuery.class)
+                .addScalar("request_hash", String.class)
+                .addScalar("response", String.class)
+                .getResultList();
+        return rows.stream().findFirst().map(row -> new IdempotencyRecord((String) row[0], (String) row[1]));
+    }
+
+    /**
+     * The claim method is used to insert a key in the current transaction. While the transaction is open,
+     * a concurrent claim of the same key waits for it, and fails once it is committed.
+     *
+     * @param key the idempotency key.
+     * @param requestHash the hash of the operation and the request body.
+     */
+    public void claim(String key, String requestHash) {
+        entityManager.createNativeQuery("INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at) "
+                        + "VALUES (:key, :requestHash, CURRENT_TIMESTAMP)")
+                .setParameter("key", key)
+                .setParameter("requestHash", requestHash)
+                .executeUpdate();
+    }
+
+    /**
+     * The complete method is used to store the response of a claimed key in the current transaction.
+     *
+     * @param key the idempotency key.
+     * @param response the response body as JSON.
+     */
+    public void complete(String key, String response) {
+        entityManager.createNativeQuery("UPDATE idempotency_keys SET response = :response WHERE idempotency_key = :key")
+                .setParameter("key", key)
+                .setParameter("response", response)
+                .executeUpdate();
+    }
+
+    /**
+     * The deleteCreatedBefore method is used to remove the keys that have outlived their time to live.
+     *
+     * @param cutoff the creation time before which keys are removed.
+     * @return the number of removed keys.
+     */
+    public int deleteCreatedBefore(OffsetDateTime cutoff) {
+        return entityManager.createNativeQuery("DELETE FROM idempotency_keys WHERE created_at < :cutoff")
+                .setParameter("cutoff", cutoff)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,13 @@
+package com.gutu.tasksmanager.repository;
+
+/**
+ * IdempotencyRecord record is the stored outcome of a write made with an Idempotency-Key.
+ *
+ * @param requestHash the hash of the operation and the request body the key was first used with.
+ * @param response the response body of the write as JSON.
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public record IdempotencyRecord(String requestHash, String response) {
+}
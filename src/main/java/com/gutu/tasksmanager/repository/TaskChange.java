@@ -0,0 +1,24 @@
+package com.gutu.tasksmanager.repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * TaskChange record is one entry of the change feed: a task that was created or updated, or the tombstone
+ * of a deleted task.
+ *
+ * @param id the task id.
+ * @param changedAt the update timestamp of the task, or the deletion timestamp of the tombstone.
+ * @param task the current state of the task, or null when the task was deleted.
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public record TaskChange(Long id, OffsetDateTime changedAt, TaskView task) {
+
+    /**
+     * @return whether the change is the deletion of the task.
+     */
+    public boolean isDeleted() {
+        return task == null;
+    }
+}
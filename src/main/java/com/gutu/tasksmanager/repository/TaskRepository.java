@@ -1,9 +1,20 @@
 package com.gutu.tasksmanager.repository;
 
 import com.gutu.tasksmanager.entity.TaskEntity;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  * TaskRepository interface is a repository that handles the database operations related to tasks.
  *
@@ -12,5 +23,51 @@ import org.springframework.stereotype.Repository;
  * @since 06.03.2025
  */
 @Repository
-public interface TaskRepository extends JpaRepository<TaskEntity, Long> {
+public interface TaskRepository extends JpaRepository<TaskEntity, Long>, JpaSpecificationExecutor<TaskEntity>,
+        TaskRepositoryCustom {
+
+    /**
+     * The TASK_VIEW_SELECT constant is the constructor expression that projects a task row into a TaskView.
+     */
+    String TASK_VIEW_SELECT = "select new com.gutu.tasksmanager.repository.TaskView(t.id, t.title, t.description, "
+            + "t.status, t.createdAt, t.updatedAt, t.version) from TaskEntity t";
+
+    /**
+     * The findAllViews method is used to read all tasks as projections, without loading any entity.
+     *
+     * @return the projections of all tasks.
+     */
+    @Query(TASK_VIEW_SELECT)
+    List<TaskView> findAllViews();
+
+    /**
+     * The findViewById method is used to read a task by its id as a projection, without loading the entity.
+     *
+     * @param id the task id.
+     * @return the projection of the task, or empty when no task has the given id.
+     */
+    @Query(TASK_VIEW_SELECT + " where t.id = :id")
+    Optional<TaskView> findViewById(@Param("id") Long id);
+
+    /**
+     * The findVersionById method is used to read only the version of a task, to check a cached copy against it.
+     *
+     * @param id the task id.
+     * @return the version of the task, or empty when no task has the given id.
+     */
+    @Query("select t.version from TaskEntity t where t.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * The streamAllByOrderByIdAsc method is used to read all tasks as a stream backed by a JDBC cursor.
+     * The rows are fetched in chunks of the fetch size, so the result is never held in memory at once.
+     * It must be consumed inside a transaction and closed afterwards.
+     *
+     * @return the stream of all tasks ordered by id.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<TaskEntity> streamAllByOrderByIdAsc();
 }
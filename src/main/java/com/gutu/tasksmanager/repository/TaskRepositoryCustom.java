@@ -0,0 +1,123 @@
+package com.gutu.tasksmanager.repository;
+
+import com.gutu.tasksmanager.entity.TaskEntity;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * TaskRepositoryCustom interface declares the task queries that cannot be derived by Spring Data.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * The insertReturning method is used to insert tasks and read them back in a single statement,
+     * stamped with the clock of the database.
+     *
+     * @param tasks the tasks to insert, of which the title, the description and the status are written.
+     * @return the inserted tasks, in the order of the given tasks.
+     */
+    List<TaskEntity> insertReturning(List<TaskEntity> tasks);
+
+    /**
+     * The updateReturning method is used to update a task and read it back in a single statement.
+     *
+     * @param id the task id.
+     * @param title the new title.
+     * @param description the new description.
+     * @param status the new status.
+     * @param expectedVersion the version the task must have to be updated, or null to update any version.
+     * @return the updated task with its previous status, or empty when no task has the given id and expected version.
+     */
+    Optional<TaskUpdate> updateReturning(Long id, String title, String description, SimpleTask.StatusEnum status,
+                                         Long expectedVersion);
+
+    /**
+     * The patchReturning method is used to update the given fields of a task and read it back in a single statement.
+     *
+     * @param id the task id.
+     * @param title the new title, or null to keep the current one.
+     * @param description the new description, or null to keep the current one.
+     * @param status the new status, or null to keep the current one.
+     * @param expectedVersion the version the task must have to be updated, or null to update any version.
+     * @return the updated task with its previous status when the status is set, or empty when no task has the given
+     * id and expected version.
+     */
+    Optional<TaskUpdate> patchReturning(Long id, String title, String description, SimpleTask.StatusEnum status,
+                                        Long expectedVersion);
+
+    /**
+     * The updateStatusReturning method is used to move many tasks to one status and read them back, with the status
+     * each one replaced, in a single statement. Tasks that already have the status are not touched.
+     *
+     * @param ids the task ids.
+     * @param status the new status.
+     * @return the tasks whose status changed, with their previous status.
+     */
+    List<TaskUpdate> updateStatusReturning(Collection<Long> ids, SimpleTask.StatusEnum status);
+
+    /**
+     * The deleteReturningStatus method is used to delete a task and read its status in a single statement.
+     *
+     * @param id the task id.
+     * @return the status of the deleted task, or empty when no task has the given id.
+     */
+    Optional<SimpleTask.StatusEnum> deleteReturningStatus(Long id);
+
+    /**
+     * The insertTombstone method is used to record that a task was deleted, so the deletion shows up in the change feed.
+     *
+     * @param id the id of the deleted task.
+     */
+    void insertTombstone(Long id);
+
+    /**
+     * The deleteTombstonesBefore method is used to remove the tombstones of the tasks deleted before the given time.
+     *
+     * @param deletedBefore the time before which the tombstones are removed.
+     * @return the number of tombstones removed.
+     */
+    int deleteTombstonesBefore(OffsetDateTime deletedBefore);
+
+    /**
+     * The findChanges method is used to read the tasks created or updated and the tombstones of the tasks deleted
+     * after the given position of the change feed, ordered by the time of the change and the id.
+     *
+     * @param afterChangedAt the time of the last change already read, or null to read from the start.
+     * @param afterId the id of the last change already read, ignored when afterChangedAt is null.
+     * @param settleTime the age a change must have, on the clock of the database, to be read.
+     * @param limit the maximum number of changes.
+     * @return the changes.
+     */
+    List<TaskChange> findChanges(OffsetDateTime afterChangedAt, Long afterId, Duration settleTime, int limit);
+
+    /**
+     * The findViews method is used to read the tasks matching a specification as projections, without loading
+     * the entities.
+     *
+     * @param specification the criteria of the tasks.
+     * @param sort the order of the tasks.
+     * @param limit the maximum number of tasks.
+     * @return the projections of the matching tasks, in the given order.
+     */
+    List<TaskView> findViews(Specification<TaskEntity> specification, Sort sort, int limit);
+
+    /**
+     * The search method is used to find the tasks whose title or description match the given keywords.
+     *
+     * @param query the keywords, in web search syntax.
+     * @param limit the maximum number of tasks.
+     * @return the matching tasks, best matches first.
+     */
+    List<TaskEntity> search(String query, int limit);
+}
@@ -0,0 +1,99 @@
+package com.gutu.tasksmanager.repository;
+
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * TaskStatusCountRepository class maintains the number of tasks per status in the task_status_counts table.
+ * Every status is spread over several stripes, so concurrent writes of the same status rarely wait
+ * for each other's row lock; a count is the sum of its stripes.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Repository
+@Profile("!reactive")
+public class TaskStatusCountRepository {
+
+    /**
+     * The number of stripes per status, seeded by the 1.4.0-create-task-status-counts changeset.
+     */
+    private static final int STRIPES = 8;
+
+    private final EntityManager entityManager;
+
+    public TaskStatusCountRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * The add method is used to apply count changes in the current transaction.
+     * All the changes go to one randomly chosen stripe and are applied in the order of the statuses,
+     * so two transactions always lock the counter rows in the same order.
+     *
+     * @param deltas the change of the count of every status.
+     */
+    public void add(Map<SimpleTask.StatusEnum, Long> deltas) {
+        int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+        new EnumMap<>(deltas).forEach((status, delta) -> {
+            if (delta != 0) {
+                entityManager.createNativeQuery("UPDATE task_status_counts SET task_count = task_count + :delta "
+                                + "WHERE status = :status AND stripe = :stripe")
+                        .setParameter("delta", delta)
+                        .setParameter("status", status.name())
+                        .setParameter("stripe", stripe)
+                        .executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * The add method is used to change the count of one status in the current transaction.
+     *
+     * @param status the status.
+     * @param delta the change of the count.
+     */
+    public void add(SimpleTask.StatusEnum status, long delta) {
+        add(Map.of(status, delta));
+    }
+
+    /**
+     * The move method is used to move one task from a status to another in the counts.
+     *
+     * @param from the previous status.
+     * @param to the new status.
+     */
+    public void move(SimpleTask.StatusEnum from, SimpleTask.StatusEnum to) {
+        if (from != to) {
+            add(Map.of(from, -1L, to, 1L));
+        }
+    }
+
+    /**
+     * The getCounts method is used to read the number of tasks of every status.
+     *
+     * @return the count of every status; statuses without tasks map to 0.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<SimpleTask.StatusEnum, Long> getCounts() {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT status, SUM(task_count) FROM task_status_counts GROUP BY status")
+                .getResultList();
+        Map<SimpleTask.StatusEnum, Long> counts = new EnumMap<>(SimpleTask.StatusEnum.class);
+        for (SimpleTask.StatusEnum status : SimpleTask.StatusEnum.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : rows) {
+            counts.put(SimpleTask.StatusEnum.valueOf((String) row[0]), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+}
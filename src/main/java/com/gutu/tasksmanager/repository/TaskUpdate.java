@@ -0,0 +1,24 @@
+package com.gutu.tasksmanager.repository;
+
+import com.gutu.tasksmanager.entity.TaskEntity;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+
+/**
+ * TaskUpdate record is a task as written by an update, with the status it had before, so the counts can be
+ * moved without reading the task first.
+ *
+ * @param task the updated task, detached from the persistence context.
+ * @param previousStatus the status before the update, or null when the update did not set the status.
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public record TaskUpdate(TaskEntity task, SimpleTask.StatusEnum previousStatus) {
+
+    /**
+     * @return whether the update moved the task to another status.
+     */
+    public boolean isStatusChanged() {
+        return previousStatus != null && previousStatus != task.getStatus();
+    }
+}
@@ -0,0 +1,29 @@
+package com.gutu.tasksmanager.repository;
+
+import com.gutu.tasksmanager.models.model.SimpleTask;
+
+import java.time.OffsetDateTime;
+
+/**
+ * TaskView record is a read-only projection of a task row.
+ * It is built straight from the query result, so no entity is hydrated or tracked by the persistence context.
+ *
+ * @param id the task id.
+ * @param title the title.
+ * @param description the description.
+ * @param status the status.
+ * @param createdAt the creation timestamp.
+ * @param updatedAt the last update timestamp.
+ * @param version the version, incremented on every update.
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public record TaskView(Long id,
+                       String title,
+                       String description,
+                       SimpleTask.StatusEnum status,
+                       OffsetDateTime createdAt,
+                       OffsetDateTime updatedAt,
+                       Long version) {
+}
@@ -0,0 +1,506 @@
+package com.gutu.tasksmanager.repository.impl;
+
+import com.gutu.tasksmanager.entity.TaskEntity;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.repository.TaskChange;
+import com.gutu.tasksmanager.repository.TaskRepositoryCustom;
+import com.gutu.tasksmanager.repository.TaskUpdate;
+import com.gutu.tasksmanager.repository.TaskView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.TypedParameterValue;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * TaskRepositoryCustomImpl class implements the task queries that cannot be derived by Spring Data.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    private static final String TASK_COLUMNS = "id, title, description, status, created_at, updated_at, version";
+
+    private static final String VERSION_CONDITION = " AND version = :expectedVersion";
+
+    /**
+     * The SEARCH_VECTOR constant is the expression of the GIN search index, which a query must repeat verbatim
+     * for the index to be used.
+     */
+    private static final String SEARCH_VECTOR = "(setweight(to_tsvector('english', coalesce(title, '')), 'A') || "
+            + "setweight(to_tsvector('english', coalesce(description, '')), 'B'))";
+
+    private final EntityManager entityManager;
+
+    /**
+     * The h2 field tells whether the database is H2, resolved on first use.
+     */
+    private volatile Boolean h2;
+
+    public TaskRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * The insertReturning method is used to insert tasks and read them back in a single statement.
+     * Every row is stamped with one reading of the clock of the database, taken when the statement runs.
+     * The ids are taken from the tasks_seq sequence shared with the JPA entities; one value is used per task,
+     * so the ids never overlap the blocks Hibernate allocates from the same sequence.
+     *
+     * @param tasks the tasks to insert, of which the title, the description and the status are written.
+     * @return the inserted tasks, in the order of the given tasks.
+     */
+    @Override
+    public List<TaskEntity> insertReturning(List<TaskEntity> tasks) {
+        String nextId = isH2() ? "NEXT VALUE FOR tasks_seq" : "nextval('tasks_seq')";
+        // H2's CURRENT_TIMESTAMP is constant within a statement, clock_timestamp() is read once by the CTE
+        String stamp = isH2() ? clock() : "(SELECT now FROM stamp)";
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < tasks.size(); i++) {
+            values.append(i > 0 ? ", " : "").append("(").append(nextId)
+                    .append(", :title").append(i).append(", :description").append(i).append(", :status").append(i)
+                    .append(", ").append(stamp).append(", ").append(stamp).append(", 0)");
+        }
+        String insert = "INSERT INTO tasks (" + TASK_COLUMNS + ") VALUES " + values;
+        Query query = entityManager.createNativeQuery(isH2() ? toReturningSql(insert)
+                : "WITH stamp AS (SELECT " + clock() + " AS now) " + toReturningSql(insert));
+        for (int i = 0; i < tasks.size(); i++) {
+            TaskEntity task = tasks.get(i);
+            query.setParameter("title" + i, task.getTitle())
+                    .setParameter("description" + i, new TypedParameterValue<>(StandardBasicTypes.STRING,
+                            task.getDescription()))
+                    .setParameter("status" + i, task.getStatus().name());
+        }
+        // The sequence is drawn in the order of the rows, so the ids follow the order of the given tasks
+        return readTasks(query).stream()
+                .sorted(Comparator.comparing(TaskEntity::getId))
+                .toList();
+    }
+
+    /**
+     * The updateReturning method is used to update a task and read it back in a single statement.
+     * The row is read as scalars, so a stale instance in the persistence context is never returned.
+     *
+     * @param id the task id.
+     * @param title the new title.
+     * @param description the new description.
+     * @param status the new status.
+     * @param expectedVersion the version the task must have to be updated, or null to update any version.
+     * @return the updated task with its previous status, or empty when no task has the given id and expected version.
+     */
+    @Override
+    public Optional<TaskUpdate> updateReturning(Long id, String title, String description, SimpleTask.StatusEnum status,
+                                                Long expectedVersion) {
+        return patchReturning(id, title, description, status, expectedVersion);
+    }
+
+    /**
+     * The patchReturning method is used to update the given fields of a task and read it back in a single statement.
+     * Only the columns of the non-null fields are written, besides the update timestamp and the version.
+     * When the status is set, the statement also returns the status it replaces: on PostgreSQL the row is locked
+     * by a CTE of the UPDATE, whose RETURNING reads both, and H2 reads the replaced row through a data change
+     * delta table before reading the task back.
+     *
+     * @param id the task id.
+     * @param title the new title, or null to keep the current one.
+     * @param description the new description, or null to keep the current one.
+     * @param status the new status, or null to keep the current one.
+     * @param expectedVersion the version the task must have to be updated, or null to update any version.
+     * @return the updated task with its previous status when the status is set, or empty when no task has the given
+     * id and expected version.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<TaskUpdate> patchReturning(Long id, String title, String description, SimpleTask.StatusEnum status,
+                                               Long expectedVersion) {
+        StringBuilder assignments = new StringBuilder();
+        if (title != null) {
+            assignments.append("title = :title, ");
+        }
+        if (description != null) {
+            assignments.append("description = :description, ");
+        }
+        if (status != null) {
+            assignments.append("status = :status, ");
+        }
+        assignments.append("updated_at = ").append(clock()).append(", version = version + 1");
+        String condition = "id = :id" + (expectedVersion != null ? VERSION_CONDITION : "");
+        String update = "UPDATE tasks SET " + assignments + " WHERE " + condition;
+
+        if (status == null) {
+            Query query = bindPatch(entityManager.createNativeQuery(toReturningSql(update)), id, title, description,
+                    null, expectedVersion);
+            return readTasks(query).stream().findFirst().map(task -> new TaskUpdate(task, null));
+        }
+        if (isH2()) {
+            Query query = bindPatch(entityManager.createNativeQuery("SELECT status FROM OLD TABLE (" + update + ")"),
+                    id, title, description, status, expectedVersion);
+            List<String> previous = query.getResultList();
+            if (previous.isEmpty()) {
+                return Optional.empty();
+            }
+            Query read = entityManager.createNativeQuery("SELECT " + TASK_COLUMNS + " FROM tasks WHERE id = :id")
+                    .setParameter("id", id);
+            return readTasks(read).stream().findFirst()
+                    .map(task -> new TaskUpdate(task, SimpleTask.StatusEnum.valueOf(previous.get(0))));
+        }
+        String sql = "WITH previous AS (SELECT id, status FROM tasks WHERE " + condition + " FOR UPDATE) "
+                + "UPDATE tasks SET " + assignments + " FROM previous WHERE tasks.id = previous.id "
+                + "RETURNING tasks.*, previous.status AS previous_status";
+        Query query = bindPatch(entityManager.createNativeQuery(sql), id, title, description, status, expectedVersion);
+        List<Object[]> rows = query.unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("title", String.class)
+                .addScalar("description", String.class)
+                .addScalar("status", String.class)
+                .addScalar("created_at", OffsetDateTime.class)
+                .addScalar("updated_at", OffsetDateTime.class)
+                .addScalar("version", Long.class)
+                .addScalar("previous_status", String.class)
+                .getResultList();
+        return rows.stream().findFirst()
+                .map(row -> new TaskUpdate(mapToTaskEntity(row), SimpleTask.StatusEnum.valueOf((String) row[7])));
+    }
+
+    private static Query bindPatch(Query query, Long id, String title, String description,
+                                   SimpleTask.StatusEnum status, Long expectedVersion) {
+        query.setParameter("id", id);
+        if (title != null) {
+            query.setParameter("title", title);
+        }
+        if (description != null) {
+            query.setParameter("description", description);
+        }
+        if (status != null) {
+            query.setParameter("status", status.name());
+        }
+        if (expectedVersion != null) {
+            query.setParameter("expectedVersion", expectedVersion);
+        }
+        return query;
+    }
+
+    /**
+     * The updateStatusReturning method is used to move many tasks to one status and read them back, with the status
+     * each one replaced, in a single statement. On PostgreSQL the rows that will change are locked in the order of
+     * their ids by a CTE of the UPDATE, whose RETURNING reads both states; H2 reads the replaced rows through a data
+     * change delta table before reading the tasks back.
+     *
+     * @param ids the task ids.
+     * @param status the new status.
+     * @return the tasks whose status changed, with their previous status, in the order of their ids.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<TaskUpdate> updateStatusReturning(Collection<Long> ids, SimpleTask.StatusEnum status) {
+        String assignments = "status = :status, updated_at = " + clock() + ", version = version + 1";
+        String condition = "id IN (:ids) AND status <> :status";
+        if (isH2()) {
+            List<Object[]> previous = entityManager.createNativeQuery("SELECT id, status FROM OLD TABLE ("
+                            + "UPDATE tasks SET " + assignments + " WHERE " + condition + ")")
+                    .setParameter("ids", ids)
+                    .setParameter("status", status.name())
+                    .getResultList();
+            if (previous.isEmpty()) {
+                return List.of();
+            }
+            Map<Long, SimpleTask.StatusEnum> previousStatuses = new HashMap<>();
+            previous.forEach(row -> previousStatuses.put(((Number) row[0]).longValue(),
+                    SimpleTask.StatusEnum.valueOf((String) row[1])));
+            Query read = entityManager.createNativeQuery("SELECT " + TASK_COLUMNS + " FROM tasks WHERE id IN (:ids) "
+                            + "ORDER BY id")
+                    .setParameter("ids", previousStatuses.keySet());
+            return readTasks(read).stream()
+                    .map(task -> new TaskUpdate(task, previousStatuses.get(task.getId())))
+                    .toList();
+        }
+        String sql = "WITH previous AS (SELECT id, status FROM tasks WHERE " + condition + " ORDER BY id FOR UPDATE) "
+                + "UPDATE tasks SET " + assignments + " FROM previous WHERE tasks.id = previous.id "
+                + "RETURNING tasks.*, previous.status AS previous_status";
+        List<Object[]> rows = entityManager.createNativeQuery(sql)
+                .setParameter("ids", ids)
+                .setParameter("status", status.name())
+                .unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("title", String.class)
+                .addScalar("description", String.class)
+                .addScalar("status", String.class)
+                .addScalar("created_at", OffsetDateTime.class)
+                .addScalar("updated_at", OffsetDateTime.class)
+                .addScalar("version", Long.class)
+                .addScalar("previous_status", String.class)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new TaskUpdate(mapToTaskEntity(row), SimpleTask.StatusEnum.valueOf((String) row[7])))
+                .sorted(Comparator.comparing(update -> update.task().getId()))
+                .toList();
+    }
+
+    /**
+     * The deleteReturningStatus method is used to delete a task and read its status in a single statement.
+     * PostgreSQL appends RETURNING to the DELETE, H2 reads the deleted row through a data change delta table.
+     *
+     * @param id the task id.
+     * @return the status of the deleted task, or empty when no task has the given id.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<SimpleTask.StatusEnum> deleteReturningStatus(Long id) {
+        String delete = "DELETE FROM tasks WHERE id = :id";
+        String sql = isH2() ? "SELECT status FROM OLD TABLE (" + delete + ")" : delete + " RETURNING status";
+        List<String> statuses = entityManager.createNativeQuery(sql)
+                .setParameter("id", id)
+                .getResultList();
+        return statuses.stream().findFirst().map(SimpleTask.StatusEnum::valueOf);
+    }
+
+    /**
+     * The insertTombstone method is used to record that a task was deleted, so the deletion shows up in the change feed.
+     *
+     * @param id the id of the deleted task.
+     */
+    @Override
+    public void insertTombstone(Long id) {
+        entityManager.createNativeQuery("INSERT INTO task_tombstones (id, deleted_at) VALUES (:id, " + clock() + ")")
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    /**
+     * The deleteTombstonesBefore method is used to remove the tombstones of the tasks deleted before the given time.
+     * The deletion times are indexed, so only the expired tombstones are visited.
+     *
+     * @param deletedBefore the time before which the tombstones are removed.
+     * @return the number of tombstones removed.
+     */
+    @Override
+    public int deleteTombstonesBefore(OffsetDateTime deletedBefore) {
+        return entityManager.createNativeQuery("DELETE FROM task_tombstones WHERE deleted_at < :deletedBefore")
+                .setParameter("deletedBefore", deletedBefore)
+                .executeUpdate();
+    }
+
+    /**
+     * The findChanges method is used to read the tasks created or updated and the tombstones of the tasks deleted
+     * after the given position of the change feed, ordered by the time of the change and the id.
+     * Both sides of the UNION ALL are range scans of their (timestamp, id) index, so the cost depends
+     * on the number of changes rather than the size of the table.
+     *
+     * Only the changes older than the settle time are read, measured on the clock that stamped them within the
+     * same statement.
+     *
+     * @param afterChangedAt the time of the last change already read, or null to read from the start.
+     * @param afterId the id of the last change already read, ignored when afterChangedAt is null.
+     * @param settleTime the age a change must have to be read.
+     * @param limit the maximum number of changes.
+     * @return the changes.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<TaskChange> findChanges(OffsetDateTime afterChangedAt, Long afterId, Duration settleTime, int limit) {
+        String settledBefore = settledBefore();
+        String sql = "SELECT " + TASK_COLUMNS + ", changed_at FROM ("
+                + "SELECT " + TASK_COLUMNS + ", updated_at AS changed_at FROM tasks WHERE "
+                + changeRange("updated_at", settledBefore, afterChangedAt != null)
+                + " UNION ALL "
+                + "SELECT id, NULL, NULL, NULL, NULL, NULL, NULL, deleted_at FROM task_tombstones WHERE "
+                + changeRange("deleted_at", settledBefore, afterChangedAt != null)
+                + ") changes ORDER BY changed_at, id LIMIT :limit";
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("settleMillis", settleTime.toMillis())
+                .setParameter("limit", limit);
+        if (afterChangedAt != null) {
+            query.setParameter("afterChangedAt", afterChangedAt)
+                    .setParameter("afterId", afterId);
+        }
+        List<Object[]> rows = query.unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("title", String.class)
+                .addScalar("description", String.class)
+                .addScalar("status", String.class)
+                .addScalar("created_at", OffsetDateTime.class)
+                .addScalar("updated_at", OffsetDateTime.class)
+                .addScalar("version", Long.class)
+                .addScalar("changed_at", OffsetDateTime.class)
+                .getResultList();
+        return rows.stream().map(this::mapToTaskChange).toList();
+    }
+
+    private static String changeRange(String column, String settledBefore, boolean hasPosition) {
+        String range = column + " <= " + settledBefore;
+        if (hasPosition) {
+            range += " AND (" + column + " > :afterChangedAt OR (" + column + " = :afterChangedAt AND id > :afterId))";
+        }
+        return range;
+    }
+
+    /**
+     * The findViews method is used to read the tasks matching a specification as projections.
+     * Only the columns of the view are selected and no entity is hydrated or tracked by the persistence context.
+     *
+     * @param specification the criteria of the tasks.
+     * @param sort the order of the tasks.
+     * @param limit the maximum number of tasks.
+     * @return the projections of the matching tasks, in the given order.
+     */
+    @Override
+    public List<TaskView> findViews(Specification<TaskEntity> specification, Sort sort, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskView> query = builder.createQuery(TaskView.class);
+        Root<TaskEntity> root = query.from(TaskEntity.class);
+        query.select(builder.construct(TaskView.class, root.get("id"), root.get("title"), root.get("description"),
+                root.get("status"), root.get("createdAt"), root.get("updatedAt"), root.get("version")));
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * The search method is used to find the tasks whose title or description match the given keywords.
+     * On PostgreSQL the query runs against the GIN expression index on the weighted title and description, and
+     * only the matches are ranked, with title matches above description matches. H2 has no full-text column, so every keyword has to be
+     * contained in the title or the description and title matches come first.
+     *
+     * @param query the keywords, in web search syntax.
+     * @param limit the maximum number of tasks.
+     * @return the matching tasks, best matches first.
+     */
+    @Override
+    public List<TaskEntity> search(String query, int limit) {
+        return isH2() ? searchByKeywords(query, limit) : searchByVector(query, limit);
+    }
+
+    private List<TaskEntity> searchByVector(String query, int limit) {
+        Query search = entityManager.createNativeQuery("SELECT " + TASK_COLUMNS + " FROM tasks, "
+                        + "websearch_to_tsquery('english', :query) q WHERE " + SEARCH_VECTOR + " @@ q "
+                        + "ORDER BY ts_rank(" + SEARCH_VECTOR + ", q) DESC, id LIMIT :limit")
+                .setParameter("query", query)
+                .setParameter("limit", limit);
+        return readTasks(search);
+    }
+
+    private List<TaskEntity> searchByKeywords(String query, int limit) {
+        String[] keywords = query.replace('"', ' ').trim().toLowerCase(Locale.ROOT).split("\\s+");
+        StringBuilder sql = new StringBuilder("SELECT " + TASK_COLUMNS + " FROM tasks WHERE ");
+        for (int i = 0; i < keywords.length; i++) {
+            if (i > 0) {
+                sql.append(" AND ");
+            }
+            sql.append("(LOWER(title) LIKE :k").append(i).append(" ESCAPE '\\' OR LOWER(description) LIKE :k")
+                    .append(i).append(" ESCAPE '\\')");
+        }
+        sql.append(" ORDER BY CASE WHEN LOWER(title) LIKE :k0 ESCAPE '\\' THEN 0 ELSE 1 END, id LIMIT :limit");
+
+        Query search = entityManager.createNativeQuery(sql.toString()).setParameter("limit", limit);
+        for (int i = 0; i < keywords.length; i++) {
+            search.setParameter("k" + i, "%" + keywords[i].replaceAll("([\\\\%_])", "\\\\$1") + "%");
+        }
+        return readTasks(search);
+    }
+
+    /**
+     * The toReturningSql method is used to turn an UPDATE into a statement that also returns the updated rows.
+     * PostgreSQL appends RETURNING to the UPDATE itself, H2 reads the rows through a data change delta table.
+     *
+     * @param update the UPDATE statement.
+     * @return the statement returning all the columns of the updated rows.
+     */
+    private String toReturningSql(String update) {
+        return isH2() ? "SELECT * FROM FINAL TABLE (" + update + ")" : update + " RETURNING *";
+    }
+
+    /**
+     * The clock method is used to get the expression that stamps a change. PostgreSQL's CURRENT_TIMESTAMP is the
+     * start of the transaction, clock_timestamp() is taken when the row is written, after any row lock was waited for.
+     *
+     * @return the SQL expression of the current time.
+     */
+    private String clock() {
+        return isH2() ? "CURRENT_TIMESTAMP" : "clock_timestamp()";
+    }
+
+    /**
+     * The settledBefore method is used to get the expression of the latest time of a change the change feed reads.
+     * On a PostgreSQL replica the clock is the commit time of the last replayed transaction, so every change older
+     * than it is already visible there however far the replica trails the primary; it is null until a transaction
+     * is replayed, which reads nothing. A promoted standby is no longer in recovery and reads its own clock.
+     * The time is read once by a scalar subquery, so the timestamp indexes stay usable.
+     *
+     * @return the SQL expression of the settled time.
+     */
+    private String settledBefore() {
+        if (isH2()) {
+            return "DATEADD(MILLISECOND, -:settleMillis, CURRENT_TIMESTAMP)";
+        }
+        return "CAST((SELECT CASE WHEN pg_is_in_recovery() THEN pg_last_xact_replay_timestamp() ELSE now() END) "
+                + "- :settleMillis * INTERVAL '1 millisecond' AS TIMESTAMP)";
+    }
+
+    private boolean isH2() {
+        Boolean value = h2;
+        if (value == null) {
+            String product = entityManager.unwrap(Session.class)
+                    .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+            value = "H2".equalsIgnoreCase(product);
+            h2 = value;
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TaskEntity> readTasks(Query query) {
+        List<Object[]> rows = query.unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("title", String.class)
+                .addScalar("description", String.class)
+                .addScalar("status", String.class)
+                .addScalar("created_at", OffsetDateTime.class)
+                .addScalar("updated_at", OffsetDateTime.class)
+                .addScalar("version", Long.class)
+                .getResultList();
+        return rows.stream().map(this::mapToTaskEntity).toList();
+    }
+
+    private TaskChange mapToTaskChange(Object[] row) {
+        // Tombstones have no status, every task row has one
+        TaskView task = row[3] == null ? null : new TaskView((Long) row[0], (String) row[1], (String) row[2],
+                SimpleTask.StatusEnum.valueOf((String) row[3]), (OffsetDateTime) row[4], (OffsetDateTime) row[5],
+                (Long) row[6]);
+        return new TaskChange((Long) row[0], (OffsetDateTime) row[7], task);
+    }
+
+    private TaskEntity mapToTaskEntity(Object[] row) {
+        TaskEntity task = new TaskEntity();
+        task.setId((Long) row[0]);
+        task.setTitle((String) row[1]);
+        task.setDescription((String) row[2]);
+        task.setStatus(SimpleTask.StatusEnum.valueOf((String) row[3]));
+        task.setCreatedAt((OffsetDateTime) row[4]);
+        task.setUpdatedAt((OffsetDateTime) row[5]);
+        task.setVersion((Long) row[6]);
+        return task;
+    }
+}
@@ -0,0 +1,235 @@
+package com.gutu.tasksmanager.repository.reactive;
+
+import com.gutu.tasksmanager.entity.TaskEntity;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.repository.TaskUpdate;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * ReactiveTaskRepository class runs the task statements of the reactive profile over R2DBC.
+ * It works on the same tables as the JPA repositories and uses the same SQL, including the
+ * H2 data change delta tables in place of RETURNING.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveTaskRepository {
+
+    private static final String TASK_COLUMNS = "id, title, description, status, created_at, updated_at, version";
+
+    /**
+     * The FETCH_SIZE constant is the number of rows fetched at once when the tasks are streamed.
+     */
+    private static final int FETCH_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * The h2 field tells whether the database is H2.
+     */
+    private final boolean h2;
+
+    public ReactiveTaskRepository(DatabaseClient databaseClient, ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.h2 = "H2".equalsIgnoreCase(connectionFactory.getMetadata().getName());
+    }
+
+    /**
+     * The insert method is used to insert a task and read it back in a single statement.
+     * The id is taken from the tasks_seq sequence shared with the JPA entities; one value is used per task,
+     * so the ids never overlap the blocks Hibernate allocates from the same sequence.
+     *
+     * @param title the title.
+     * @param description the description.
+     * @param status the status.
+     * @return the inserted task.
+     */
+    public Mono<TaskEntity> insert(String title, String description, SimpleTask.StatusEnum status) {
+        String nextId = h2 ? "NEXT VALUE FOR tasks_seq" : "nextval('tasks_seq')";
+        String insert = "INSERT INTO tasks (" + TASK_COLUMNS + ") VALUES (" + nextId
+                + ", :title, :description, :status, " + clock() + ", " + clock() + ", 0)";
+        String sql = h2 ? "SELECT * FROM FINAL TABLE (" + insert + ")" : insert + " RETURNING *";
+        return bindNullable(databaseClient.sql(sql)
+                .bind("title", title), "description", description)
+                .bind("status", status.name())
+                .map(ReactiveTaskRepository::mapToTaskEntity)
+                .one();
+    }
+
+    /**
+     * The findById method is used to read a task by its id.
+     *
+     * @param id the task id.
+     * @return the task, or empty when no task has the given id.
+     */
+    public Mono<TaskEntity> findById(Long id) {
+        return databaseClient.sql("SELECT " + TASK_COLUMNS + " FROM tasks WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveTaskRepository::mapToTaskEntity)
+                .one();
+    }
+
+    /**
+     * The findAll method is used to stream the tasks in the order of their ids.
+     * Rows are fetched in chunks as the subscriber requests them, so a slow client holds back the query
+     * instead of the tasks piling up in memory.
+     *
+     * @param status the status of the tasks, or null for all of them.
+     * @param limit the maximum number of tasks, or null for all of them.
+     * @return the stream of tasks.
+     */
+    public Flux<TaskEntity> findAll(SimpleTask.StatusEnum status, Integer limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + TASK_COLUMNS + " FROM tasks");
+        if (status != null) {
+            sql.append(" WHERE status = :status");
+        }
+        sql.append(" ORDER BY id");
+        if (limit != null) {
+            sql.append(" LIMIT :limit");
+        }
+
+        DatabaseClient.GenericExecuteSpec query = databaseClient.sql(sql.toString())
+                .filter(statement -> statement.fetchSize(FETCH_SIZE));
+        if (status != null) {
+            query = query.bind("status", status.name());
+        }
+        if (limit != null) {
+            query = query.bind("limit", limit);
+        }
+        return query.map(ReactiveTaskRepository::mapToTaskEntity).all();
+    }
+
+    /**
+     * The updateReturning method is used to update a task and read it back with the status it replaced in a single
+     * statement: on PostgreSQL the row is locked by a CTE of the UPDATE, whose RETURNING reads both, and H2 reads
+     * the replaced row through a data change delta table before reading the task back.
+     *
+     * @param id the task id.
+     * @param title the new title.
+     * @param description the new description.
+     * @param status the new status.
+     * @param expectedVersion the version the task must have to be updated, or null to update any version.
+     * @return the updated task with its previous status, or empty when no task has the given id and expected version.
+     */
+    public Mono<TaskUpdate> updateReturning(Long id, String title, String description, SimpleTask.StatusEnum status,
+                                            Long expectedVersion) {
+        String assignments = "title = :title, description = :description, status = :status, "
+                + "updated_at = " + clock() + ", version = version + 1";
+        String condition = "id = :id" + (expectedVersion != null ? " AND version = :expectedVersion" : "");
+        if (h2) {
+            String update = "UPDATE tasks SET " + assignments + " WHERE " + condition;
+            return bindUpdate(databaseClient.sql("SELECT status FROM OLD TABLE (" + update + ")"),
+                    id, title, description, status, expectedVersion)
+                    .map(row -> SimpleTask.StatusEnum.valueOf(row.get("status", String.class)))
+                    .one()
+                    .flatMap(previousStatus -> databaseClient.sql("SELECT " + TASK_COLUMNS + " FROM tasks WHERE id = :id")
+                            .bind("id", id)
+                            .map(row -> new TaskUpdate(mapToTaskEntity(row), previousStatus))
+                            .one());
+        }
+        String sql = "WITH previous AS (SELECT id, status FROM tasks WHERE " + condition + " FOR UPDATE) "
+                + "UPDATE tasks SET " + assignments + " FROM previous WHERE tasks.id = previous.id "
+                + "RETURNING tasks.*, previous.status AS previous_status";
+        return bindUpdate(databaseClient.sql(sql), id, title, description, status, expectedVersion)
+                .map(row -> new TaskUpdate(mapToTaskEntity(row),
+                        SimpleTask.StatusEnum.valueOf(row.get("previous_status", String.class))))
+                .one();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindUpdate(DatabaseClient.GenericExecuteSpec query, Long id,
+                                                                String title, String description,
+                                                                SimpleTask.StatusEnum status, Long expectedVersion) {
+        query = bindNullable(query.bind("id", id).bind("title", title), "description", description)
+                .bind("status", status.name());
+        return expectedVersion == null ? query : query.bind("expectedVersion", expectedVersion);
+    }
+
+    /**
+     * The existsById method is used to check whether a task exists.
+     *
+     * @param id the task id.
+     * @return true when a task has the given id.
+     */
+    public Mono<Boolean> existsById(Long id) {
+        return databaseClient.sql("SELECT id FROM tasks WHERE id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * The deleteReturningStatus method is used to delete a task and read its status in a single statement.
+     *
+     * @param id the task id.
+     * @return the status of the deleted task, or empty when no task has the given id.
+     */
+    public Mono<SimpleTask.StatusEnum> deleteReturningStatus(Long id) {
+        String delete = "DELETE FROM tasks WHERE id = :id";
+        String sql = h2 ? "SELECT status FROM OLD TABLE (" + delete + ")" : delete + " RETURNING status";
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .map(row -> SimpleTask.StatusEnum.valueOf(row.get("status", String.class)))
+                .one();
+    }
+
+    /**
+     * The insertTombstone method is used to record that a task was deleted, so the deletion shows up in the change feed.
+     *
+     * @param id the id of the deleted task.
+     * @return a Mono that completes once the tombstone is written.
+     */
+    public Mono<Void> insertTombstone(Long id) {
+        return databaseClient.sql("INSERT INTO task_tombstones (id, deleted_at) VALUES (:id, " + clock() + ")")
+                .bind("id", id)
+                .then();
+    }
+
+    /**
+     * The clock method is used to get the expression that stamps a change, the same clock as the servlet stack:
+     * on PostgreSQL the time the row is written rather than the start of the transaction.
+     *
+     * @return the SQL expression of the current time.
+     */
+    private String clock() {
+        return h2 ? "CURRENT_TIMESTAMP" : "clock_timestamp()";
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec query,
+                                                                  String name, String value) {
+        return value == null ? query.bindNull(name, String.class) : query.bind(name, value);
+    }
+
+    private static TaskEntity mapToTaskEntity(Readable row) {
+        TaskEntity task = new TaskEntity();
+        task.setId(row.get("id", Long.class));
+        task.setTitle(row.get("title", String.class));
+        task.setDescription(row.get("description", String.class));
+        task.setStatus(SimpleTask.StatusEnum.valueOf(row.get("status", String.class)));
+        task.setCreatedAt(toOffsetDateTime(row.get("created_at")));
+        task.setUpdatedAt(toOffsetDateTime(row.get("updated_at")));
+        task.setVersion(row.get("version", Long.class));
+        return task;
+    }
+
+    // Columns without a time zone hold the local time of the JVM, as written by Hibernate
+    private static OffsetDateTime toOffsetDateTime(Object value) {
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime.atZone(ZoneId.systemDefault()).toOffsetDateTime();
+        }
+        return (OffsetDateTime) value;
+    }
+}
@@ -0,0 +1,80 @@
+package com.gutu.tasksmanager.repository.reactive;
+
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ReactiveTaskStatusCountRepository class maintains the number of tasks per status in the task_status_counts
+ * table over R2DBC, with the same stripes as TaskStatusCountRepository.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveTaskStatusCountRepository {
+
+    /**
+     * The number of stripes per status, seeded by the 1.4.0-create-task-status-counts changeset.
+     */
+    private static final int STRIPES = 8;
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveTaskStatusCountRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * The add method is used to apply count changes in the current transaction.
+     * All the changes go to one randomly chosen stripe and are applied one after the other in the order
+     * of the statuses, so two transactions always lock the counter rows in the same order.
+     *
+     * @param deltas the change of the count of every status.
+     * @return completes once every change is applied.
+     */
+    public Mono<Void> add(Map<SimpleTask.StatusEnum, Long> deltas) {
+        int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+        return Flux.fromIterable(new EnumMap<>(deltas).entrySet())
+                .filter(delta -> delta.getValue() != 0)
+                .concatMap(delta -> databaseClient.sql("UPDATE task_status_counts SET task_count = task_count + :delta "
+                                + "WHERE status = :status AND stripe = :stripe")
+                        .bind("delta", delta.getValue())
+                        .bind("status", delta.getKey().name())
+                        .bind("stripe", stripe)
+                        .fetch()
+                        .rowsUpdated())
+                .then();
+    }
+
+    /**
+     * The add method is used to change the count of one status in the current transaction.
+     *
+     * @param status the status.
+     * @param delta the change of the count.
+     * @return completes once the change is applied.
+     */
+    public Mono<Void> add(SimpleTask.StatusEnum status, long delta) {
+        return add(Map.of(status, delta));
+    }
+
+    /**
+     * The move method is used to move one task from a status to another in the counts.
+     *
+     * @param from the previous status.
+     * @param to the new status.
+     * @return completes once the task is moved.
+     */
+    public Mono<Void> move(SimpleTask.StatusEnum from, SimpleTask.StatusEnum to) {
+        return from == to ? Mono.empty() : add(Map.of(from, -1L, to, 1L));
+    }
+}
@@ -0,0 +1,56 @@
+package com.gutu.tasksmanager.repository.specification;
+
+import com.gutu.tasksmanager.models.model.SimpleTask;
+
+import java.time.OffsetDateTime;
+import java.util.Set;
+
+/**
+ * TaskFilter record holds the criteria and the order of a task listing.
+ * Every criterion is optional; the time ranges include their lower bound and exclude their upper bound.
+ *
+ * @param status the status of the tasks.
+ * @param active whether only the tasks that are not completed are listed.
+ * @param createdFrom the earliest creation timestamp.
+ * @param createdTo the creation timestamp the tasks must be created before.
+ * @param updatedFrom the earliest update timestamp.
+ * @param updatedTo the update timestamp the tasks must be updated before.
+ * @param sort the order of the tasks.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public record TaskFilter(SimpleTask.StatusEnum status,
+                         boolean active,
+                         OffsetDateTime createdFrom,
+                         OffsetDateTime createdTo,
+                         OffsetDateTime updatedFrom,
+                         OffsetDateTime updatedTo,
+                         TaskSort sort) {
+
+    /**
+     * The ACTIVE_STATUSES constant is the statuses of the tasks that are not completed. On PostgreSQL
+     * these tasks are stored in their own partition, so listing them does not read the completed ones.
+     */
+    public static final Set<SimpleTask.StatusEnum> ACTIVE_STATUSES =
+            Set.of(SimpleTask.StatusEnum.TODO, SimpleTask.StatusEnum.IN_PROGRESS);
+
+    public TaskFilter(SimpleTask.StatusEnum status,
+                      OffsetDateTime createdFrom,
+                      OffsetDateTime createdTo,
+                      OffsetDateTime updatedFrom,
+                      OffsetDateTime updatedTo,
+                      TaskSort sort) {
+        this(status, false, createdFrom, createdTo, updatedFrom, updatedTo, sort);
+    }
+
+    /**
+     * The unfiltered method is used to get the filter that lists all tasks by id.
+     *
+     * @return the filter without criteria.
+     */
+    public static TaskFilter unfiltered() {
+        return new TaskFilter(null, null, null, null, null, TaskSort.ID_ASC);
+    }
+}
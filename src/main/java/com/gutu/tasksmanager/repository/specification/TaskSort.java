@@ -0,0 +1,90 @@
+package com.gutu.tasksmanager.repository.specification;
+
+import com.gutu.tasksmanager.exception.ValidationException;
+import com.gutu.tasksmanager.repository.TaskView;
+import org.springframework.data.domain.Sort;
+
+import java.time.OffsetDateTime;
+import java.util.function.Function;
+
+/**
+ * TaskSort enum lists the orders in which tasks can be listed.
+ * Every order ends with the task id, so it is total and can be used for keyset pagination.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public enum TaskSort {
+    ID_ASC("id", null, null, false),
+    ID_DESC("-id", null, null, true),
+    CREATED_AT_ASC("created_at", "createdAt", TaskView::createdAt, false),
+    CREATED_AT_DESC("-created_at", "createdAt", TaskView::createdAt, true),
+    UPDATED_AT_ASC("updated_at", "updatedAt", TaskView::updatedAt, false),
+    UPDATED_AT_DESC("-updated_at", "updatedAt", TaskView::updatedAt, true);
+
+    private final String parameter;
+
+    private final String attribute;
+
+    private final Function<TaskView, OffsetDateTime> accessor;
+
+    private final boolean descending;
+
+    TaskSort(String parameter, String attribute, Function<TaskView, OffsetDateTime> accessor, boolean descending) {
+        this.parameter = parameter;
+        this.attribute = attribute;
+        this.accessor = accessor;
+        this.descending = descending;
+    }
+
+    /**
+     * @return the entity attribute the tasks are ordered by before the id, or null when they are ordered by id only.
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * The keyOf method is used to read the sort attribute of a task.
+     *
+     * @param task the task.
+     * @return the value of the sort attribute, or null when the tasks are ordered by id only.
+     */
+    public OffsetDateTime keyOf(TaskView task) {
+        return accessor == null ? null : accessor.apply(task);
+    }
+
+    /**
+     * The toSort method is used to build the Spring Data sort of this order.
+     *
+     * @return the sort by the attribute, then by id.
+     */
+    public Sort toSort() {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort byId = Sort.by(direction, "id");
+        return attribute == null ? byId : Sort.by(direction, attribute).and(byId);
+    }
+
+    /**
+     * The fromParameter method is used to read the order from the sort query parameter.
+     *
+     * @param parameter the column name, prefixed with "-" for a descending order, or null for the default order.
+     * @return the order.
+     */
+    public static TaskSort fromParameter(String parameter) {
+        if (parameter == null || parameter.isEmpty()) {
+            return ID_ASC;
+        }
+        for (TaskSort sort : values()) {
+            if (sort.parameter.equals(parameter)) {
+                return sort;
+            }
+        }
+        throw new ValidationException("Invalid sort value. Must be id, created_at or updated_at, optionally prefixed with -");
+    }
+}
@@ -0,0 +1,76 @@
+package com.gutu.tasksmanager.repository.specification;
+
+import com.gutu.tasksmanager.entity.TaskEntity;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TaskSpecifications class builds the JPA specifications used to filter and page tasks.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    /**
+     * The matching method is used to build the specification of the criteria of a filter.
+     *
+     * @param filter the filter.
+     * @return the specification matching the tasks that meet every criterion of the filter.
+     */
+    public static Specification<TaskEntity> matching(TaskFilter filter) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.status() != null) {
+                predicates.add(builder.equal(root.get("status"), filter.status()));
+            }
+            if (filter.active()) {
+                predicates.add(root.get("status").in(TaskFilter.ACTIVE_STATUSES));
+            }
+            if (filter.createdFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("createdAt"), filter.createdFrom()));
+            }
+            if (filter.createdTo() != null) {
+                predicates.add(builder.lessThan(root.get("createdAt"), filter.createdTo()));
+            }
+            if (filter.updatedFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("updatedAt"), filter.updatedFrom()));
+            }
+            if (filter.updatedTo() != null) {
+                predicates.add(builder.lessThan(root.get("updatedAt"), filter.updatedTo()));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * The after method is used to build the keyset specification of the tasks that follow a given task in a sort order.
+     *
+     * @param sort the sort order.
+     * @param lastId the id of the last task of the previous page.
+     * @param lastValue the value of the sort attribute of the last task of the previous page, or null when sorted by id.
+     * @return the specification matching the tasks placed after the given task.
+     */
+    public static Specification<TaskEntity> after(TaskSort sort, long lastId, OffsetDateTime lastValue) {
+        return (root, query, builder) -> {
+            Predicate afterId = sort.isDescending()
+                    ? builder.lessThan(root.get("id"), lastId)
+                    : builder.greaterThan(root.get("id"), lastId);
+            if (sort.getAttribute() == null) {
+                return afterId;
+            }
+            Predicate afterValue = sort.isDescending()
+                    ? builder.lessThan(root.get(sort.getAttribute()), lastValue)
+                    : builder.greaterThan(root.get(sort.getAttribute()), lastValue);
+            return builder.or(afterValue, builder.and(builder.equal(root.get(sort.getAttribute()), lastValue), afterId));
+        };
+    }
+}
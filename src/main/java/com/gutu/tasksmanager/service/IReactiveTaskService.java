@@ -0,0 +1,61 @@
+package com.gutu.tasksmanager.service;
+
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * IReactiveTaskService interface is the non-blocking counterpart of ITaskService used by the reactive profile.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public interface IReactiveTaskService {
+    /**
+     * The createTask method is used to create a new task.
+     *
+     * @param request the request object that contains the task details.
+     * @return the created task details.
+     */
+    Mono<TaskWithDetails> createTask(CreateUpdateTaskRequest request);
+
+    /**
+     * The getTasks method is used to stream the tasks in the order of their ids.
+     *
+     * @param status the status of the tasks, or null for all of them.
+     * @param limit the maximum number of tasks, or null for all of them.
+     * @return the stream of tasks, read from the database as the subscriber requests them.
+     */
+    Flux<TaskWithDetails> getTasks(SimpleTask.StatusEnum status, Integer limit);
+
+    /**
+     * The getTaskById method is used to get a task by its id.
+     *
+     * @param id the task id.
+     * @return the task details, or empty when the task does not exist.
+     */
+    Mono<TaskWithDetails> getTaskById(Long id);
+
+    /**
+     * The updateTask method is used to update a task only if it still has the expected version.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the task details.
+     * @param expectedVersion the version the task must have, or null to update any version.
+     * @return the updated task details, or empty when the task does not exist.
+     * @throws com.gutu.tasksmanager.exception.PreconditionFailedException as an error signal when the task
+     *                                                                    has another version.
+     */
+    Mono<TaskWithDetails> updateTask(Long id, CreateUpdateTaskRequest request, Long expectedVersion);
+
+    /**
+     * The deleteTask method is used to delete a task.
+     *
+     * @param id the task id.
+     * @return true when the task was deleted, false when it did not exist.
+     */
+    Mono<Boolean> deleteTask(Long id);
+}
@@ -1,9 +1,16 @@
 package com.gutu.tasksmanager.service;
 
 import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.PatchTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskChanges;
+import com.gutu.tasksmanager.models.model.TaskPage;
+import com.gutu.tasksmanager.models.model.TaskStats;
 import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.repository.specification.TaskFilter;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * ITaskService interface is a service interface that provides methods to interact with tasks.
@@ -21,6 +28,14 @@ public interface ITaskService {
      */
     TaskWithDetails createTask(CreateUpdateTaskRequest request);
 
+    /**
+     * The createTasks method is used to create many tasks in one transaction.
+     *
+     * @param requests the request objects that contain the task details.
+     * @return the created task details, in the order of the requests.
+     */
+    List<TaskWithDetails> createTasks(List<CreateUpdateTaskRequest> requests);
+
     /**
      * The getAllTasks method is used to get all tasks.
      *
@@ -28,6 +43,57 @@ public interface ITaskService {
      */
     List<TaskWithDetails> getAllTasks();
 
+    /**
+     * The getTasksPage method is used to get one page of the tasks matching a filter using keyset pagination.
+     *
+     * @param filter the criteria and the order of the tasks.
+     * @param cursor the opaque cursor of the page, or null for the first page.
+     * @param limit the requested page size, or null for the default page size.
+     * @return the page of tasks with the cursor of the next page.
+     */
+    TaskPage getTasksPage(TaskFilter filter, String cursor, Integer limit);
+
+    /**
+     * The searchTasks method is used to find the tasks whose title or description match the given keywords.
+     *
+     * @param query the keywords.
+     * @param limit the maximum number of tasks, or null for the default number.
+     * @return the matching tasks, best matches first.
+     */
+    List<TaskWithDetails> searchTasks(String query, Integer limit);
+
+    /**
+     * The exportTasks method is used to pass all tasks, one at a time, to the given consumer.
+     *
+     * @param consumer the consumer that receives every task.
+     */
+    void exportTasks(Consumer<TaskWithDetails> consumer);
+
+    /**
+     * The getChanges method is used to get the tasks created or updated and the ids of the tasks deleted
+     * after the position of a change feed cursor.
+     *
+     * @param since the opaque cursor of the previous sync, or null to read the feed from the start.
+     * @param limit the maximum number of changes, or null for the default page size.
+     * @return the changes with the cursor of the next sync.
+     */
+    TaskChanges getChanges(String since, Integer limit);
+
+    /**
+     * The getTaskETag method is used to get the entity tag of a task without reading the task itself.
+     *
+     * @param id the task id.
+     * @return the quoted entity tag of the task, or null when no task has the given id.
+     */
+    String getTaskETag(Long id);
+
+    /**
+     * The getTaskStats method is used to get the number of tasks per status.
+     *
+     * @return the response object that contains the task counts.
+     */
+    TaskStats getTaskStats();
+
     /**
      * The getTaskById method is used to get a task by its id.
      *
@@ -45,6 +111,37 @@ public interface ITaskService {
      */
     TaskWithDetails updateTask(Long id, CreateUpdateTaskRequest request);
 
+    /**
+     * The updateTask method is used to update a task only if it still has the expected version.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the task details.
+     * @param expectedVersion the version the task must have, or null to update any version.
+     * @return the response object that contains the updated task details, or null when the task does not exist.
+     * @throws com.gutu.tasksmanager.exception.PreconditionFailedException when the task has another version.
+     */
+    TaskWithDetails updateTask(Long id, CreateUpdateTaskRequest request, Long expectedVersion);
+
+    /**
+     * The patchTask method is used to change only the supplied fields of a task.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the fields to change.
+     * @param expectedVersion the version the task must have, or null to update any version.
+     * @return the response object that contains the updated task details, or null when the task does not exist.
+     * @throws com.gutu.tasksmanager.exception.PreconditionFailedException when the task has another version.
+     */
+    TaskWithDetails patchTask(Long id, PatchTaskRequest request, Long expectedVersion);
+
+    /**
+     * The updateStatus method is used to move many tasks to one status.
+     *
+     * @param ids the task ids.
+     * @param status the new status.
+     * @return the number of tasks whose status changed.
+     */
+    int updateStatus(List<Long> ids, SimpleTask.StatusEnum status);
+
     /**
      * The deleteTask method is used to delete a task.
      *
@@ -0,0 +1,216 @@
+package com.gutu.tasksmanager.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.PatchTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskChanges;
+import com.gutu.tasksmanager.models.model.TaskPage;
+import com.gutu.tasksmanager.models.model.TaskStats;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.repository.specification.TaskFilter;
+import com.gutu.tasksmanager.service.ITaskService;
+import com.gutu.tasksmanager.utils.TaskETags;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CachingTaskService class is a read-through cache in front of the task service.
+ * Tasks read by id are served from the cache; writes go to the task service first
+ * and invalidate the cached entry once they are committed. When the write joins an outer transaction,
+ * the entry is invalidated after that transaction commits, so a read running in the meantime cannot
+ * put the previous state back into the cache. Misses are loaded from the primary database, never from a
+ * read replica, so a lagging replica cannot put the previous state back after the invalidation either.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "tasks.cache.enabled", havingValue = "true", matchIfMissing = true)
+@Profile("!reactive")
+public class CachingTaskService implements ITaskService {
+
+    private final TaskService taskService;
+
+    private final Cache<Long, TaskWithDetails> taskCache;
+
+    public CachingTaskService(TaskService taskService, Cache<Long, TaskWithDetails> taskCache) {
+        this.taskService = taskService;
+        this.taskCache = taskCache;
+    }
+
+    @Override
+    public TaskWithDetails createTask(CreateUpdateTaskRequest request) {
+        return taskService.createTask(request);
+    }
+
+    @Override
+    public List<TaskWithDetails> createTasks(List<CreateUpdateTaskRequest> requests) {
+        return taskService.createTasks(requests);
+    }
+
+    @Override
+    public List<TaskWithDetails> getAllTasks() {
+        return taskService.getAllTasks();
+    }
+
+    @Override
+    public TaskPage getTasksPage(TaskFilter filter, String cursor, Integer limit) {
+        return taskService.getTasksPage(filter, cursor, limit);
+    }
+
+    @Override
+    public List<TaskWithDetails> searchTasks(String query, Integer limit) {
+        return taskService.searchTasks(query, limit);
+    }
+
+    @Override
+    public void exportTasks(Consumer<TaskWithDetails> consumer) {
+        taskService.exportTasks(consumer);
+    }
+
+    @Override
+    public TaskChanges getChanges(String since, Integer limit) {
+        return taskService.getChanges(since, limit);
+    }
+
+    /**
+     * The getTaskETag method is used to get the entity tag of a task from its cached entry, reading only its
+     * version on a miss.
+     *
+     * @param id the task id.
+     * @return the quoted entity tag of the task, or null when no task has the given id.
+     */
+    @Override
+    public String getTaskETag(Long id) {
+        TaskWithDetails cached = taskCache.getIfPresent(id);
+        return cached != null ? TaskETags.forTask(cached) : taskService.getTaskETag(id);
+    }
+
+    @Override
+    public TaskStats getTaskStats() {
+        return taskService.getTaskStats();
+    }
+
+    /**
+     * The getTaskById method is used to get a task by its id from the cache, loading it on a miss.
+     * Concurrent misses on the same id wait for a single load from the primary. Missing tasks are not cached.
+     *
+     * @param id the task id.
+     * @return the response object that contains the task details.
+     */
+    @Override
+    public TaskWithDetails getTaskById(Long id) {
+        return taskCache.get(id, taskService::loadTaskById);
+    }
+
+    /**
+     * The updateTask method is used to update a task and invalidate its cached entry.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the task details.
+     * @return the response object that contains the updated task details.
+     */
+    @Override
+    public TaskWithDetails updateTask(Long id, CreateUpdateTaskRequest request) {
+        try {
+            return taskService.updateTask(id, request);
+        } finally {
+            invalidateAfterCommit(List.of(id));
+        }
+    }
+
+    /**
+     * The updateTask method is used to conditionally update a task and invalidate its cached entry.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the task details.
+     * @param expectedVersion the version the task must have, or null to update any version.
+     * @return the response object that contains the updated task details.
+     */
+    @Override
+    public TaskWithDetails updateTask(Long id, CreateUpdateTaskRequest request, Long expectedVersion) {
+        try {
+            return taskService.updateTask(id, request, expectedVersion);
+        } finally {
+            invalidateAfterCommit(List.of(id));
+        }
+    }
+
+    /**
+     * The patchTask method is used to partially update a task and invalidate its cached entry.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the fields to change.
+     * @param expectedVersion the version the task must have, or null to update any version.
+     * @return the response object that contains the updated task details.
+     */
+    @Override
+    public TaskWithDetails patchTask(Long id, PatchTaskRequest request, Long expectedVersion) {
+        try {
+            return taskService.patchTask(id, request, expectedVersion);
+        } finally {
+            invalidateAfterCommit(List.of(id));
+        }
+    }
+
+    /**
+     * The updateStatus method is used to move many tasks to one status and invalidate their cached entries.
+     *
+     * @param ids the task ids.
+     * @param status the new status.
+     * @return the number of tasks whose status changed.
+     */
+    @Override
+    public int updateStatus(List<Long> ids, SimpleTask.StatusEnum status) {
+        try {
+            return taskService.updateStatus(ids, status);
+        } finally {
+            invalidateAfterCommit(ids);
+        }
+    }
+
+    /**
+     * The deleteTask method is used to delete a task and invalidate its cached entry.
+     *
+     * @param id the task id.
+     * @return a boolean value indicating the success of the operation.
+     */
+    @Override
+    public boolean deleteTask(Long id) {
+        try {
+            return taskService.deleteTask(id);
+        } finally {
+            invalidateAfterCommit(List.of(id));
+        }
+    }
+
+    /**
+     * The invalidateAfterCommit method is used to drop cached entries once the current transaction commits,
+     * or at once when no transaction is active.
+     *
+     * @param ids the ids of the changed tasks.
+     */
+    private void invalidateAfterCommit(Collection<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            taskCache.invalidateAll(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                taskCache.invalidateAll(ids);
+            }
+        });
+    }
+}
@@ -0,0 +1,225 @@
+package com.gutu.tasksmanager.service.impl;
+
+import com.gutu.tasksmanager.exception.ServiceUnavailableException;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * GroupCommitTaskWriter class creates the tasks of concurrent requests together, in one transaction per group.
+ * The requests wait in a bounded queue that a single writer thread drains; a group is written once it reaches
+ * the maximum batch size or the flush window has passed since its first request, and every caller gets back
+ * its own task, or its own error, once the group is committed.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Service
+@Slf4j
+@Profile("!reactive")
+@ConditionalOnProperty(name = "tasks.group-commit.enabled", havingValue = "true")
+public class GroupCommitTaskWriter {
+
+    /**
+     * The IDLE_POLL_MILLIS constant is how often an idle writer checks whether it is stopped.
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final TaskService taskService;
+
+    private final BlockingQueue<PendingTask> queue;
+
+    /**
+     * The maxBatchSize field is the maximum number of tasks created in one transaction.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * The flushWindowNanos field is the longest time the first request of a group waits for more requests.
+     */
+    private final long flushWindowNanos;
+
+    /**
+     * The waitTimeout field is the longest time a caller waits for its task to be created.
+     */
+    private final Duration waitTimeout;
+
+    private final DistributionSummary batchSizes;
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public GroupCommitTaskWriter(TaskService taskService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${tasks.group-commit.max-batch-size:100}") int maxBatchSize,
+                                 @Value("${tasks.group-commit.flush-window:5ms}") Duration flushWindow,
+                                 @Value("${tasks.group-commit.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${tasks.group-commit.wait-timeout:10s}") Duration waitTimeout) {
+        this.taskService = taskService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.flushWindowNanos = flushWindow.toNanos();
+        this.waitTimeout = waitTimeout;
+        Gauge.builder("tasks.group.commit.queue.depth", queue, Collection::size)
+                .description("Create requests waiting for the next group commit")
+                .register(meterRegistry);
+        Gauge.builder("tasks.group.commit.queue.capacity", queue, q -> queueCapacity)
+                .description("Maximum number of create requests waiting for a group commit")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("tasks.group.commit.batch.size")
+                .description("Tasks created per group commit")
+                .register(meterRegistry);
+        this.writer = Thread.ofPlatform().name("task-group-commit").daemon().start(this::run);
+    }
+
+    /**
+     * The createTask method is used to create a task with the next group commit.
+     * The calling thread waits until the group the task belongs to is committed, or at most the wait timeout.
+     * A request that times out while still queued is withdrawn; one whose group is already being written may
+     * still be created.
+     *
+     * @param request the request object that contains the task details.
+     * @return the response object that contains the created task details.
+     * @throws ServiceUnavailableException when the queue is full, the writer is stopped or the wait timed out.
+     */
+    public TaskWithDetails createTask(CreateUpdateTaskRequest request) {
+        var pending = new PendingTask(request, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            throw new ServiceUnavailableException("Too many tasks waiting to be created");
+        }
+        // The writer may have stopped after the check, without seeing the request
+        if (!running && queue.remove(pending)) {
+            throw new ServiceUnavailableException("The task writer is shutting down");
+        }
+        try {
+            return pending.result.get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            queue.remove(pending);
+            throw new ServiceUnavailableException("The task was not created within " + waitTimeout.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.remove(pending);
+            throw new ServiceUnavailableException("Interrupted while waiting for the task to be created");
+        }
+    }
+
+    /**
+     * @return the number of requests waiting for a group commit.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * The shutdown method is used to stop the writer once the group it is writing is committed.
+     * The requests still waiting in the queue get an error.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    // The writer is not interrupted on shutdown, so a group is never cut off in the middle of its transaction
+    private void run() {
+        List<PendingTask> group = new ArrayList<>(maxBatchSize);
+        try {
+            while (running) {
+                PendingTask first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                collect(group);
+                write(group);
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            queue.drainTo(group);
+            var stopped = new ServiceUnavailableException("The task writer is shutting down");
+            group.forEach(pending -> pending.result.completeExceptionally(stopped));
+        }
+    }
+
+    /**
+     * The collect method is used to add the requests that arrive within the flush window to the group.
+     *
+     * @param group the group, holding its first request.
+     * @throws InterruptedException when the writer thread is interrupted.
+     */
+    private void collect(List<PendingTask> group) throws InterruptedException {
+        long deadline = System.nanoTime() + flushWindowNanos;
+        while (group.size() < maxBatchSize) {
+            if (queue.drainTo(group, maxBatchSize - group.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            PendingTask next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    /**
+     * The write method is used to create the tasks of a group in one transaction. When the transaction fails,
+     * the tasks are created one by one, so that only the requests that caused the failure get an error.
+     *
+     * @param group the requests of the group.
+     */
+    private void write(List<PendingTask> group) {
+        batchSizes.record(group.size());
+        try {
+            List<TaskWithDetails> created = taskService.createTasks(group.stream().map(PendingTask::request).toList());
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).result.complete(created.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).result.completeExceptionally(e);
+                return;
+            }
+            log.warn("Group commit of {} tasks failed, creating them one by one: {}", group.size(), e.getMessage());
+            for (PendingTask pending : group) {
+                try {
+                    pending.result.complete(taskService.createTask(pending.request));
+                } catch (RuntimeException taskException) {
+                    pending.result.completeExceptionally(taskException);
+                }
+            }
+        }
+    }
+
+    private record PendingTask(CreateUpdateTaskRequest request, CompletableFuture<TaskWithDetails> result) {
+    }
+}
@@ -0,0 +1,235 @@
+package com.gutu.tasksmanager.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutu.tasksmanager.exception.ConflictException;
+import com.gutu.tasksmanager.exception.ValidationException;
+import com.gutu.tasksmanager.repository.IdempotencyKeyRepository;
+import com.gutu.tasksmanager.repository.IdempotencyRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * IdempotencyService class makes the writes sent with an Idempotency-Key run at most once per key.
+ * The key is claimed in the transaction of the write and stored with its response, so a retry gets the
+ * original response back without writing again. A concurrent request with the same key waits on the row lock
+ * of the claim and replays the response once the first request is committed. Keys are kept for at least
+ * their time to live and removed in the background afterwards.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Service
+@Slf4j
+@Profile("!reactive")
+public class IdempotencyService {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration ttl;
+
+    private final Counter replays;
+
+    private final ScheduledExecutorService purges;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${tasks.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${tasks.idempotency.purge-interval:10m}") Duration purgeInterval) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.replays = Counter.builder("tasks.idempotency.replayed")
+                .description("Writes answered with the stored response of their Idempotency-Key")
+                .register(meterRegistry);
+        this.purges = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("idempotency-key-purge")
+                .daemon().factory());
+        purges.scheduleWithFixedDelay(this::purge, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The execute method is used to run a write once per key.
+     *
+     * @param key the idempotency key.
+     * @param operation the name of the operation, so a key cannot be replayed for another operation.
+     * @param request the request body, so a key cannot be replayed for another request.
+     * @param responseType the type of the response.
+     * @param write the write, run in the transaction that claims the key.
+     * @param <T> the type of the response.
+     * @return the response of the write, or the stored response when the key was already used.
+     */
+    public <T> T execute(String key, String operation, Object request, Class<T> responseType, Supplier<T> write) {
+        return execute(key, operation, null, request, objectMapper.constructType(responseType), write);
+    }
+
+    /**
+     * The execute method is used to run a conditional write once per key.
+     *
+     * @param key the idempotency key.
+     * @param operation the name of the operation, so a key cannot be replayed for another operation.
+     * @param ifMatch the If-Match header of the request, so a key cannot be replayed for another precondition.
+     * @param request the request body, so a key cannot be replayed for another request.
+     * @param responseType the type of the response.
+     * @param write the write, run in the transaction that claims the key.
+     * @param <T> the type of the response.
+     * @return the response of the write, or the stored response when the key was already used.
+     */
+    public <T> T execute(String key, String operation, String ifMatch, Object request, Class<T> responseType,
+                         Supplier<T> write) {
+        return execute(key, operation, ifMatch, request, objectMapper.constructType(responseType), write);
+    }
+
+    /**
+     * The execute method is used to run a write once per key.
+     *
+     * @param key the idempotency key.
+     * @param operation the name of the operation, so a key cannot be replayed for another operation.
+     * @param request the request body, so a key cannot be replayed for another request.
+     * @param responseType the type of the response.
+     * @param write the write, run in the transaction that claims the key.
+     * @param <T> the type of the response.
+     * @return the response of the write, or the stored response when the key was already used.
+     * @throws ValidationException when the key was used for another operation or request.
+     * @throws ConflictException when a concurrent request with the same key has not completed.
+     */
+    public <T> T execute(String key, String operation, Object request, JavaType responseType, Supplier<T> write) {
+        return execute(key, operation, null, request, responseType, write);
+    }
+
+    private <T> T execute(String key, String operation, String ifMatch, Object request, JavaType responseType,
+                          Supplier<T> write) {
+        String requestHash = hash(operation, ifMatch, request);
+        Optional<IdempotencyRecord> record = find(key, requestHash);
+        if (record.isPresent()) {
+            return replay(record.get(), responseType);
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                claim(key, requestHash);
+                T response = write.get();
+                idempotencyKeyRepository.complete(key, toJson(response));
+                return response;
+            });
+        } catch (KeyClaimedException e) {
+            return replay(find(key, requestHash).orElseThrow(() ->
+                    new ConflictException("A request with the same Idempotency-Key is in progress")), responseType);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        purges.shutdownNow();
+    }
+
+    /**
+     * The purge method is used to remove the keys that have outlived their time to live.
+     */
+    private void purge() {
+        try {
+            Integer removed = transactionTemplate.execute(status ->
+                    idempotencyKeyRepository.deleteCreatedBefore(OffsetDateTime.now().minus(ttl)));
+            log.debug("Removed {} expired idempotency keys", removed);
+        } catch (RuntimeException e) {
+            log.warn("Removing the expired idempotency keys failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The find method is used to read the committed outcome of a key.
+     *
+     * @param key the idempotency key.
+     * @param requestHash the hash of the operation, the If-Match header and the request body of the current request.
+     * @return the stored outcome, or empty when the key has no committed write.
+     * @throws ValidationException when the key was used for another operation or request.
+     */
+    private Optional<IdempotencyRecord> find(String key, String requestHash) {
+        Optional<IdempotencyRecord> record = idempotencyKeyRepository.find(key);
+        if (record.isPresent() && !record.get().requestHash().equals(requestHash)) {
+            throw new ValidationException("Idempotency-Key was already used with a different request");
+        }
+        return record;
+    }
+
+    private <T> T replay(IdempotencyRecord record, JavaType responseType) {
+        replays.increment();
+        try {
+            return objectMapper.readValue(record.response(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void claim(String key, String requestHash) {
+        try {
+            idempotencyKeyRepository.claim(key, requestHash);
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            throw new KeyClaimedException(e);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String hash(String operation, String ifMatch, Object request) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            if (ifMatch != null) {
+                digest.update(("If-Match: " + ifMatch.trim()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * KeyClaimedException class is used when the key was claimed by another request, so its write is rolled back
+     * and the response of the other request is replayed instead.
+     */
+    private static class KeyClaimedException extends RuntimeException {
+        KeyClaimedException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
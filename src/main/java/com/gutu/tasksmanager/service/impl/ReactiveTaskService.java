@@ -0,0 +1,149 @@
+package com.gutu.tasksmanager.service.impl;
+
+import com.gutu.tasksmanager.entity.TaskEntity;
+import com.gutu.tasksmanager.exception.PreconditionFailedException;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.repository.reactive.ReactiveTaskRepository;
+import com.gutu.tasksmanager.repository.reactive.ReactiveTaskStatusCountRepository;
+import com.gutu.tasksmanager.service.IReactiveTaskService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveTaskService class implements the task service of the reactive profile on R2DBC.
+ * The writes keep the status counts up to date in the same transaction, as TaskService does.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Service
+@Profile("reactive")
+public class ReactiveTaskService implements IReactiveTaskService {
+
+    private final ReactiveTaskRepository taskRepository;
+
+    private final ReactiveTaskStatusCountRepository taskStatusCountRepository;
+
+    public ReactiveTaskService(ReactiveTaskRepository taskRepository,
+                               ReactiveTaskStatusCountRepository taskStatusCountRepository) {
+        this.taskRepository = taskRepository;
+        this.taskStatusCountRepository = taskStatusCountRepository;
+    }
+
+    /**
+     * The createTask method is used to create a new task.
+     *
+     * @param request the request object that contains the task details.
+     * @return the created task details.
+     */
+    @Override
+    @Transactional
+    public Mono<TaskWithDetails> createTask(CreateUpdateTaskRequest request) {
+        return taskRepository.insert(request.getTitle(), request.getDescription(), request.getStatus())
+                .flatMap(task -> taskStatusCountRepository.add(task.getStatus(), 1)
+                        .thenReturn(mapToTaskWithDetails(task)));
+    }
+
+    /**
+     * The getTasks method is used to stream the tasks in the order of their ids.
+     *
+     * @param status the status of the tasks, or null for all of them.
+     * @param limit the maximum number of tasks, or null for all of them.
+     * @return the stream of tasks, read from the database as the subscriber requests them.
+     */
+    @Override
+    public Flux<TaskWithDetails> getTasks(SimpleTask.StatusEnum status, Integer limit) {
+        return taskRepository.findAll(status, limit).map(this::mapToTaskWithDetails);
+    }
+
+    /**
+     * The getTaskById method is used to get a task by its id.
+     *
+     * @param id the task id.
+     * @return the task details, or empty when the task does not exist.
+     */
+    @Override
+    public Mono<TaskWithDetails> getTaskById(Long id) {
+        return taskRepository.findById(id).map(this::mapToTaskWithDetails);
+    }
+
+    /**
+     * The updateTask method is used to update a task only if it still has the expected version.
+     * The UPDATE also returns the status it replaced, so the task can be moved between the counts;
+     * the task is only read again when the UPDATE matched nothing, to tell 404 from 412.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the task details.
+     * @param expectedVersion the version the task must have, or null to update any version.
+     * @return the updated task details, or empty when the task does not exist.
+     */
+    @Override
+    @Transactional
+    public Mono<TaskWithDetails> updateTask(Long id, CreateUpdateTaskRequest request, Long expectedVersion) {
+        return taskRepository.updateReturning(id, request.getTitle(), request.getDescription(), request.getStatus(),
+                        expectedVersion)
+                .flatMap(updated -> taskStatusCountRepository.move(updated.previousStatus(), updated.task().getStatus())
+                        .thenReturn(mapToTaskWithDetails(updated.task())))
+                .switchIfEmpty(Mono.defer(() -> rejectIfExists(id, expectedVersion)));
+    }
+
+    /**
+     * The deleteTask method is used to delete a task.
+     * A single DELETE is issued, the status of the deleted row is taken off the counts
+     * and a tombstone is left for the change feed.
+     *
+     * @param id the task id.
+     * @return true when the task was deleted, false when it did not exist.
+     */
+    @Override
+    @Transactional
+    public Mono<Boolean> deleteTask(Long id) {
+        return taskRepository.deleteReturningStatus(id)
+                .flatMap(status -> taskStatusCountRepository.add(status, -1)
+                        .then(taskRepository.insertTombstone(id))
+                        .thenReturn(true))
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * The rejectIfExists method is used to tell a missing task from a version conflict after an update
+     * that matched nothing.
+     *
+     * @param id the task id.
+     * @param expectedVersion the version the task had to have, or null.
+     * @return an error when the task exists with another version, empty otherwise.
+     */
+    private Mono<TaskWithDetails> rejectIfExists(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+        return taskRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? Mono.error(new PreconditionFailedException("Task was modified since version " + expectedVersion))
+                        : Mono.empty());
+    }
+
+    /**
+     * The mapToTaskWithDetails method is used to map a task entity to a task with details object.
+     *
+     * @param task the task entity.
+     * @return the task with details object.
+     */
+    private TaskWithDetails mapToTaskWithDetails(TaskEntity task) {
+        var details = new TaskWithDetails();
+        details.setId(task.getId());
+        details.setTitle(task.getTitle());
+        details.setDescription(task.getDescription());
+        details.setStatus(task.getStatus());
+        details.setCreatedAt(task.getCreatedAt());
+        details.setUpdatedAt(task.getUpdatedAt());
+        details.setVersion(task.getVersion());
+        return details;
+    }
+}
@@ -1,16 +1,46 @@
 package com.gutu.tasksmanager.service.impl;
 
 import com.gutu.tasksmanager.entity.TaskEntity;
+import com.gutu.tasksmanager.exception.GoneException;
+import com.gutu.tasksmanager.exception.PreconditionFailedException;
 import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.PatchTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskChanges;
+import com.gutu.tasksmanager.models.model.TaskEvent;
+import com.gutu.tasksmanager.models.model.TaskPage;
+import com.gutu.tasksmanager.models.model.TaskStats;
 import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.repository.TaskChange;
 import com.gutu.tasksmanager.repository.TaskRepository;
+import com.gutu.tasksmanager.repository.TaskStatusCountRepository;
+import com.gutu.tasksmanager.repository.TaskUpdate;
+import com.gutu.tasksmanager.repository.TaskView;
 import com.gutu.tasksmanager.service.ITaskService;
+import com.gutu.tasksmanager.repository.specification.TaskFilter;
+import com.gutu.tasksmanager.repository.specification.TaskSort;
+import com.gutu.tasksmanager.repository.specification.TaskSpecifications;
+import com.gutu.tasksmanager.utils.TaskCursor;
+import com.gutu.tasksmanager.utils.TaskETags;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * TaskServiceImpl class is a service class that implements the task service.
@@ -21,16 +51,91 @@ import java.util.stream.Collectors;
  */
 @Service
 @Slf4j
+@Profile("!reactive")
 public class TaskService implements ITaskService {
 
     private final TaskRepository taskRepository;
 
-    public TaskService(TaskRepository taskRepository) {
+    /**
+     * The taskStatusCountRepository field keeps the number of tasks per status up to date in the write transactions.
+     */
+    private final TaskStatusCountRepository taskStatusCountRepository;
+
+    /**
+     * The entityManager field is used to detach the streamed tasks from the persistence context.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * The eventPublisher field publishes a TaskEvent for every task a write changes; the events are
+     * delivered to the task stream once the transaction commits.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * The defaultPageSize field is the page size used when the client does not request one.
+     */
+    private final int defaultPageSize;
+
+    /**
+     * The maxPageSize field is the hard maximum of the page size.
+     */
+    private final int maxPageSize;
+
+    /**
+     * The insertBatchSize field is the number of tasks inserted by one statement.
+     */
+    private final int insertBatchSize;
+
+    /**
+     * The defaultSearchLimit field is the number of search results returned when the client does not request one.
+     */
+    private final int defaultSearchLimit;
+
+    /**
+     * The maxSearchLimit field is the hard maximum of the number of search results.
+     */
+    private final int maxSearchLimit;
+
+    /**
+     * The changeSettleTime field is how long a change is held back from the change feed, so the transactions
+     * that took their timestamps earlier have committed before the cursor moves past them.
+     */
+    private final Duration changeSettleTime;
+
+    /**
+     * The tombstoneRetention field is how long the tombstones of the deleted tasks are kept, and so how old
+     * a change feed cursor can be before a full sync is needed.
+     */
+    private final Duration tombstoneRetention;
+
+    public TaskService(TaskRepository taskRepository,
+                       TaskStatusCountRepository taskStatusCountRepository,
+                       EntityManager entityManager,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${tasks.pagination.default-page-size:50}") int defaultPageSize,
+                       @Value("${tasks.pagination.max-page-size:500}") int maxPageSize,
+                       @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int insertBatchSize,
+                       @Value("${tasks.search.default-limit:20}") int defaultSearchLimit,
+                       @Value("${tasks.search.max-limit:100}") int maxSearchLimit,
+                       @Value("${tasks.changes.settle-time:2s}") Duration changeSettleTime,
+                       @Value("${tasks.changes.tombstone-retention:30d}") Duration tombstoneRetention) {
         this.taskRepository = taskRepository;
+        this.taskStatusCountRepository = taskStatusCountRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.defaultPageSize = Math.min(defaultPageSize, maxPageSize);
+        this.maxPageSize = maxPageSize;
+        this.insertBatchSize = insertBatchSize;
+        this.defaultSearchLimit = Math.min(defaultSearchLimit, maxSearchLimit);
+        this.maxSearchLimit = maxSearchLimit;
+        this.changeSettleTime = changeSettleTime;
+        this.tombstoneRetention = tombstoneRetention;
     }
 
     /**
      * The createTask method is used to create a new task.
+     * The task is inserted and read back with one statement, stamped by the clock of the database.
      *
      * @param request the request object that contains the task details.
      * @return the response object that contains the created task details.
@@ -38,29 +143,209 @@ public class TaskService implements ITaskService {
     @Override
     @Transactional
     public TaskWithDetails createTask(CreateUpdateTaskRequest request) {
-        TaskEntity task = new TaskEntity();
-        task.setTitle(request.getTitle());
-        task.setDescription(request.getDescription());
-        task.setStatus(request.getStatus());
+        TaskWithDetails created = mapToTaskWithDetails(taskRepository.insertReturning(List.of(toTaskEntity(request))).get(0));
+        taskStatusCountRepository.add(created.getStatus(), 1);
+        publish(TaskEvent.TypeEnum.CREATED, created.getId(), created);
+        return created;
+    }
 
-        return mapToTaskWithDetails(taskRepository.save(task));
+    /**
+     * The createTasks method is used to create many tasks in one transaction.
+     * The tasks are inserted and read back by one multi-row statement per batch, so no entity is managed
+     * and every batch is stamped by the clock of the database when it is written.
+     *
+     * @param requests the request objects that contain the task details.
+     * @return the created task details, in the order of the requests.
+     */
+    @Override
+    @Transactional
+    public List<TaskWithDetails> createTasks(List<CreateUpdateTaskRequest> requests) {
+        List<TaskWithDetails> created = new ArrayList<>(requests.size());
+        Map<SimpleTask.StatusEnum, Long> deltas = new EnumMap<>(SimpleTask.StatusEnum.class);
+        for (int from = 0; from < requests.size(); from += insertBatchSize) {
+            List<TaskEntity> batch = requests.subList(from, Math.min(from + insertBatchSize, requests.size())).stream()
+                    .map(this::toTaskEntity)
+                    .toList();
+            taskRepository.insertReturning(batch).forEach(task -> created.add(mapToTaskWithDetails(task)));
+        }
+        requests.forEach(request -> deltas.merge(request.getStatus(), 1L, Long::sum));
+        taskStatusCountRepository.add(deltas);
+        created.forEach(task -> publish(TaskEvent.TypeEnum.CREATED, task.getId(), task));
+        return created;
     }
 
     /**
      * The getAllTasks method is used to get all tasks.
+     * The rows are projected straight into views, so no entity is hydrated or registered in the persistence context.
      *
      * @return the response object that contains the list of tasks.
      */
     @Override
     @Transactional(readOnly = true)
     public List<TaskWithDetails> getAllTasks() {
-        return taskRepository.findAll().stream()
+        return taskRepository.findAllViews().stream()
                 .map(this::mapToTaskWithDetails)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The getTasksPage method is used to get one page of the tasks matching a filter using keyset pagination.
+     * The page starts after the sort key stored in the cursor instead of an offset, so its cost does not
+     * depend on its depth. One extra row is read to find out whether a next page exists. The rows are projected
+     * straight into views, so no entity is hydrated.
+     *
+     * @param filter the criteria and the order of the tasks.
+     * @param cursor the opaque cursor of the page, or null for the first page.
+     * @param limit the requested page size, or null for the default page size.
+     * @return the page of tasks with the cursor of the next page.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public TaskPage getTasksPage(TaskFilter filter, String cursor, Integer limit) {
+        TaskSort sort = filter.sort();
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        Specification<TaskEntity> specification = TaskSpecifications.matching(filter);
+        if (cursor != null && !cursor.isEmpty()) {
+            TaskCursor after = TaskCursor.decode(cursor, sort);
+            specification = specification.and(TaskSpecifications.after(sort, after.getLastId(), after.getLastValue()));
+        }
+        List<TaskView> tasks = taskRepository.findViews(specification, sort.toSort(), pageSize + 1);
+        boolean hasNext = tasks.size() > pageSize;
+        if (hasNext) {
+            tasks = tasks.subList(0, pageSize);
+        }
+
+        var page = new TaskPage();
+        page.setItems(tasks.stream()
+                .map(this::mapToTaskWithDetails)
+                .collect(Collectors.toList()));
+        if (hasNext) {
+            TaskView last = tasks.get(tasks.size() - 1);
+            page.setNext(TaskCursor.encode(sort, last.id(), sort.keyOf(last)));
+        }
+        return page;
+    }
+
+    /**
+     * The searchTasks method is used to find the tasks whose title or description match the given keywords.
+     * The search is served by the full-text index, so its cost depends on the matches rather than the table size.
+     *
+     * @param query the keywords.
+     * @param limit the maximum number of tasks, or null for the default number.
+     * @return the matching tasks, best matches first.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TaskWithDetails> searchTasks(String query, Integer limit) {
+        int resultLimit = limit == null ? defaultSearchLimit : Math.min(limit, maxSearchLimit);
+        return taskRepository.search(query, resultLimit).stream()
+                .map(this::mapToTaskWithDetails)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The exportTasks method is used to pass all tasks, one at a time, to the given consumer.
+     * Every task is detached once it is mapped, so the persistence context stays empty.
+     *
+     * @param consumer the consumer that receives every task.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTasks(Consumer<TaskWithDetails> consumer) {
+        try (Stream<TaskEntity> tasks = taskRepository.streamAllByOrderByIdAsc()) {
+            tasks.forEach(task -> {
+                TaskWithDetails details = mapToTaskWithDetails(task);
+                entityManager.detach(task);
+                consumer.accept(details);
+            });
+        }
+    }
+
+    /**
+     * The getChanges method is used to get the tasks created or updated and the ids of the tasks deleted
+     * after the position of a change feed cursor. The feed is read in the order of the change time with
+     * keyset pagination, so a sync costs the number of changes rather than the number of tasks.
+     * Changes younger than the settle time are left for the next sync: a row is stamped before its transaction
+     * commits, and a cursor moved past a change that is not visible yet would skip it for good. Every change is
+     * stamped by the clock of the database, and the settle time is measured on the same clock by the query itself.
+     * The retention is measured on the clock of the instance, whose skew is negligible against it.
+     *
+     * @param since the opaque cursor of the previous sync, or null to read the feed from the start.
+     * @param limit the maximum number of changes, or null for the default page size.
+     * @return the changes with the cursor of the next sync.
+     * @throws GoneException when the cursor is older than the tombstones, so deletions may have been missed.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public TaskChanges getChanges(String since, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+        TaskCursor after = since == null || since.isEmpty() ? null : TaskCursor.decodeChange(since);
+        if (after != null && after.getLastValue().isBefore(OffsetDateTime.now().minus(tombstoneRetention))) {
+            throw new GoneException("The cursor is older than the retained deletions, sync again from the start");
+        }
+        List<TaskChange> changes = taskRepository.findChanges(after == null ? null : after.getLastValue(),
+                after == null ? null : after.getLastId(), changeSettleTime, pageSize + 1);
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+
+        var result = new TaskChanges();
+        result.setItems(changes.stream()
+                .filter(change -> !change.isDeleted())
+                .map(change -> mapToTaskWithDetails(change.task()))
+                .collect(Collectors.toList()));
+        result.setDeleted(changes.stream()
+                .filter(TaskChange::isDeleted)
+                .map(TaskChange::id)
+                .collect(Collectors.toList()));
+        if (!changes.isEmpty()) {
+            TaskChange last = changes.get(changes.size() - 1);
+            result.setCursor(TaskCursor.encodeChange(last.id(), last.changedAt()));
+        } else if (after != null) {
+            result.setCursor(since);
+        }
+        result.setHasMore(hasMore);
+        return result;
+    }
+
+    /**
+     * The getTaskETag method is used to get the entity tag of a task.
+     * Only the version is read, so an unchanged task is neither loaded nor mapped.
+     *
+     * @param id the task id.
+     * @return the quoted entity tag of the task, or null when no task has the given id.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getTaskETag(Long id) {
+        return taskRepository.findVersionById(id)
+                .map(version -> TaskETags.forTask(id, version))
+                .orElse(null);
+    }
+
+    /**
+     * The getTaskStats method is used to get the number of tasks per status.
+     * The counts are read from the counters maintained by the writes, so no task is scanned.
+     *
+     * @return the response object that contains the task counts.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public TaskStats getTaskStats() {
+        Map<SimpleTask.StatusEnum, Long> counts = taskStatusCountRepository.getCounts();
+        var stats = new TaskStats();
+        stats.setTodo(counts.get(SimpleTask.StatusEnum.TODO));
+        stats.setInProgress(counts.get(SimpleTask.StatusEnum.IN_PROGRESS));
+        stats.setDone(counts.get(SimpleTask.StatusEnum.DONE));
+        stats.setTotal(counts.values().stream().mapToLong(Long::longValue).sum());
+        return stats;
+    }
+
     /**
      * The getTaskById method is used to get a task by its id.
+     * The row is projected straight into a view, so the entity is not hydrated.
      *
      * @param id the task id.
      * @return the response object that contains the task details.
@@ -68,13 +353,29 @@ public class TaskService implements ITaskService {
     @Override
     @Transactional(readOnly = true)
     public TaskWithDetails getTaskById(Long id) {
-        return taskRepository.findById(id)
+        return taskRepository.findViewById(id)
+                .map(this::mapToTaskWithDetails)
+                .orElse(null);
+    }
+
+    /**
+     * The loadTaskById method is used to get a task by its id from the primary database.
+     * The transaction is not read-only, so it is never routed to a read replica that may trail the primary;
+     * the task cache loads its entries with it, as it keeps them long after the replication lag.
+     *
+     * @param id the task id.
+     * @return the response object that contains the task details.
+     */
+    @Transactional
+    public TaskWithDetails loadTaskById(Long id) {
+        return taskRepository.findViewById(id)
                 .map(this::mapToTaskWithDetails)
                 .orElse(null);
     }
 
     /**
      * The updateTask method is used to update a task.
+     * The task is updated and read back with one statement, without loading it first.
      *
      * @param id the task id.
      * @param request the request object that contains the task details.
@@ -83,18 +384,76 @@ public class TaskService implements ITaskService {
     @Override
     @Transactional
     public TaskWithDetails updateTask(Long id, CreateUpdateTaskRequest request) {
-        return taskRepository.findById(id)
-                .map(task -> {
-                    task.setTitle(request.getTitle());
-                    task.setDescription(request.getDescription());
-                    task.setStatus(request.getStatus());
-                    return mapToTaskWithDetails(taskRepository.save(task));
-                })
-                .orElse(null);
+        return updateTask(id, request, null);
+    }
+
+    /**
+     * The updateTask method is used to update a task only if it still has the expected version.
+     * The version check is part of the UPDATE, so no row lock is held between requests;
+     * the task is only read again when the UPDATE matched nothing, to tell 404 from 412.
+     * When the status is set, the UPDATE also returns the status it replaced, to move the task between the counts.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the task details.
+     * @param expectedVersion the version the task must have, or null to update any version.
+     * @return the response object that contains the updated task details, or null when the task does not exist.
+     */
+    @Override
+    @Transactional
+    public TaskWithDetails updateTask(Long id, CreateUpdateTaskRequest request, Long expectedVersion) {
+        var updated = taskRepository.updateReturning(id, request.getTitle(), request.getDescription(),
+                request.getStatus(), expectedVersion);
+        updated.ifPresent(this::countStatusChange);
+        return toUpdateResult(id, updated.map(TaskUpdate::task), expectedVersion);
+    }
+
+    /**
+     * The patchTask method is used to change only the supplied fields of a task.
+     * The supplied columns are written and read back with one statement, without loading the task first.
+     *
+     * @param id the task id.
+     * @param request the request object that contains the fields to change.
+     * @param expectedVersion the version the task must have, or null to update any version.
+     * @return the response object that contains the updated task details, or null when the task does not exist.
+     */
+    @Override
+    @Transactional
+    public TaskWithDetails patchTask(Long id, PatchTaskRequest request, Long expectedVersion) {
+        SimpleTask.StatusEnum status = request.getStatus() == null ? null : SimpleTask.StatusEnum.fromValue(request.getStatus());
+        var updated = taskRepository.patchReturning(id, request.getTitle(), request.getDescription(), status, expectedVersion);
+        updated.ifPresent(this::countStatusChange);
+        return toUpdateResult(id, updated.map(TaskUpdate::task), expectedVersion);
+    }
+
+    /**
+     * The updateStatus method is used to move many tasks to one status with a single UPDATE.
+     * The UPDATE returns every task it changed with the status it replaced, so the previous statuses can be taken
+     * off the counts and the new state is published without reading the tasks again.
+     *
+     * @param ids the task ids.
+     * @param status the new status.
+     * @return the number of tasks whose status changed.
+     */
+    @Override
+    @Transactional
+    public int updateStatus(List<Long> ids, SimpleTask.StatusEnum status) {
+        List<TaskUpdate> updates = taskRepository.updateStatusReturning(ids, status);
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        Map<SimpleTask.StatusEnum, Long> deltas = new EnumMap<>(SimpleTask.StatusEnum.class);
+        updates.forEach(update -> deltas.merge(update.previousStatus(), -1L, Long::sum));
+        deltas.merge(status, (long) updates.size(), Long::sum);
+        taskStatusCountRepository.add(deltas);
+        updates.forEach(update -> publish(TaskEvent.TypeEnum.UPDATED, update.task().getId(),
+                mapToTaskWithDetails(update.task())));
+        return updates.size();
     }
 
     /**
      * The deleteTask method is used to delete a task.
+     * A single DELETE is issued, the status of the deleted row is taken off the counts
+     * and a tombstone is left for the change feed.
      *
      * @param id the task id.
      * @return the response object that contains the status of the operation.
@@ -102,20 +461,94 @@ public class TaskService implements ITaskService {
     @Override
     @Transactional
     public boolean deleteTask(Long id) {
-        if (taskRepository.existsById(id)) {
-            taskRepository.deleteById(id);
-            return true;
+        Optional<SimpleTask.StatusEnum> deletedStatus = taskRepository.deleteReturningStatus(id);
+        deletedStatus.ifPresent(status -> {
+            taskStatusCountRepository.add(status, -1);
+            taskRepository.insertTombstone(id);
+            publish(TaskEvent.TypeEnum.DELETED, id, null);
+        });
+        return deletedStatus.isPresent();
+    }
+
+    // A status set to the one the task already had leaves the counts alone
+    private void countStatusChange(TaskUpdate update) {
+        if (update.isStatusChanged()) {
+            taskStatusCountRepository.move(update.previousStatus(), update.task().getStatus());
+        }
+    }
+
+    /**
+     * The toUpdateResult method is used to turn the row returned by an UPDATE into the update result
+     * and announce the change.
+     * When the UPDATE matched nothing, the task is only looked up to tell a missing task from a version conflict.
+     *
+     * @param id the task id.
+     * @param updated the updated task, or empty when the UPDATE matched nothing.
+     * @param expectedVersion the version the task had to have, or null.
+     * @return the updated task details, or null when the task does not exist.
+     */
+    private TaskWithDetails toUpdateResult(Long id, Optional<TaskEntity> updated, Long expectedVersion) {
+        if (updated.isEmpty() && expectedVersion != null && taskRepository.existsById(id)) {
+            throw new PreconditionFailedException("Task was modified since version " + expectedVersion);
+        }
+        TaskWithDetails task = updated.map(this::mapToTaskWithDetails).orElse(null);
+        if (task != null) {
+            publish(TaskEvent.TypeEnum.UPDATED, id, task);
         }
-        return false;
+        return task;
+    }
+
+    /**
+     * The publish method is used to announce a change of a task. The event is only delivered
+     * to the task stream after the current transaction commits, and is dropped on a rollback.
+     *
+     * @param type the kind of change.
+     * @param id the task id.
+     * @param task the task after the change, or null when it was deleted.
+     */
+    private void publish(TaskEvent.TypeEnum type, Long id, TaskWithDetails task) {
+        var event = new TaskEvent();
+        event.setType(type);
+        event.setId(id);
+        event.setTask(task);
+        eventPublisher.publishEvent(event);
+    }
+
+    private TaskEntity toTaskEntity(CreateUpdateTaskRequest request) {
+        TaskEntity task = new TaskEntity();
+        task.setTitle(request.getTitle());
+        task.setDescription(request.getDescription());
+        task.setStatus(request.getStatus());
+        return task;
+    }
+
+    /**
+     * The mapToTaskWithDetails method is used to map a task projection to a task with details object.
+     * It is package-private so that the mapping can be benchmarked on its own.
+     *
+     * @param task the task projection.
+     * @return the task with details object.
+     */
+    TaskWithDetails mapToTaskWithDetails(TaskView task) {
+        var details = new TaskWithDetails();
+        details.setId(task.id());
+        details.setTitle(task.title());
+        details.setDescription(task.description());
+        details.setStatus(task.status());
+        details.setCreatedAt(task.createdAt());
+        details.setUpdatedAt(task.updatedAt());
+        details.setVersion(task.version());
+        return details;
     }
 
     /**
      * The mapToTaskWithDetails method is used to map a task entity to a task with details object.
+     * It is package-private so that the mapping can be benchmarked on its own.
      *
      * @param task the task entity.
      * @return the task with details object.
      */
-    private TaskWithDetails mapToTaskWithDetails(TaskEntity task) {
+    TaskWithDetails mapToTaskWithDetails(TaskEntity task) {
         var details = new TaskWithDetails();
         details.setId(task.getId());
         details.setTitle(task.getTitle());
@@ -123,6 +556,7 @@ public class TaskService implements ITaskService {
         details.setStatus(task.getStatus());
         details.setCreatedAt(task.getCreatedAt());
         details.setUpdatedAt(task.getUpdatedAt());
+        details.setVersion(task.getVersion());
         return details;
     }
 }
@@ -0,0 +1,350 @@
+package com.gutu.tasksmanager.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutu.tasksmanager.models.model.TaskEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TaskStreamService class pushes the committed task events to the subscribers of the task stream.
+ * The events are serialized once into a ring that every subscriber reads at its own position, so a subscriber
+ * costs no thread and no buffer of its own while it is idle; a virtual thread is started to write to a subscriber
+ * only while it has events pending, so a client that stops reading blocks nobody but itself. A subscriber that lags
+ * behind by more than its buffer, or whose write takes longer than the send timeout, is disconnected and resumes
+ * from its Last-Event-ID while the ring still holds the events it missed.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Service
+@Slf4j
+@Profile("!reactive")
+public class TaskStreamService {
+
+    /**
+     * The RESET_EVENT constant is the name of the event that tells a subscriber that events were lost.
+     */
+    static final String RESET_EVENT = "reset";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The subscriberBuffer field is the number of events a subscriber may lag behind before it is disconnected.
+     */
+    private final int subscriberBuffer;
+
+    /**
+     * The sendTimeoutNanos field is the time a single write to a subscriber may take before it is disconnected.
+     */
+    private final long sendTimeoutNanos;
+
+    /**
+     * The events field is the ring of the latest serialized events, indexed by their sequence number.
+     */
+    private final String[] events;
+
+    /**
+     * The epoch field tells the event ids of this instance from those of an earlier one, whose events are gone.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService senders;
+
+    private final ScheduledExecutorService heartbeats;
+
+    /**
+     * The head field is the sequence number of the next event, guarded by the ring.
+     */
+    private long head;
+
+    public TaskStreamService(ObjectMapper objectMapper,
+                             @Value("${tasks.stream.history:10000}") int history,
+                             @Value("${tasks.stream.subscriber-buffer:1000}") int subscriberBuffer,
+                             @Value("${tasks.stream.heartbeat:30s}") Duration heartbeat,
+                             @Value("${tasks.stream.send-timeout:10s}") Duration sendTimeout) {
+        this.objectMapper = objectMapper;
+        this.events = new String[history];
+        this.subscriberBuffer = Math.min(subscriberBuffer, history);
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-stream-", 0).factory());
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("task-stream-heartbeat")
+                .daemon().factory());
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long checkMillis = Math.max(sendTimeout.toMillis() / 2, 1);
+        heartbeats.scheduleWithFixedDelay(this::dropStalledSubscribers, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The subscribe method is used to open a stream of the task events.
+     * When the last event id is still in the ring, the stream starts right after it; when it is unknown
+     * or too old, the stream starts with a reset event followed by the new events.
+     *
+     * @param lastEventId the id of the last event the client received, or null for a new subscription.
+     * @return the emitter of the stream.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        var subscriber = new Subscriber(createEmitter());
+        synchronized (events) {
+            long resumeFrom = resumePosition(lastEventId);
+            subscriber.position = resumeFrom < 0 ? head : resumeFrom;
+            subscriber.reset = lastEventId != null && resumeFrom < 0;
+            // Sends the response headers right away, so the client sees the stream open before the first event
+            subscriber.heartbeat = true;
+            subscribers.add(subscriber);
+        }
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+        subscriber.schedule();
+        return subscriber.emitter;
+    }
+
+    /**
+     * The onTaskEvent method is used to append a committed task event to the ring and wake up the subscribers.
+     * It runs on the thread that committed the change, so it never writes to a subscriber itself.
+     *
+     * @param event the task event.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTaskEvent(TaskEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        long next;
+        synchronized (events) {
+            events[(int) (head % events.length)] = data;
+            next = ++head;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (next - subscriber.position > subscriberBuffer) {
+                // Slow consumer: stop sending, it resumes from its Last-Event-ID once it reconnects
+                subscribers.remove(subscriber);
+                subscriber.dropped = true;
+            }
+            subscriber.schedule();
+        }
+    }
+
+    /**
+     * @return the number of open subscriptions.
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * The createEmitter method is used to create the emitter of a new subscription.
+     * It is protected so that the emitters can be observed in tests.
+     *
+     * @return the emitter, with the default timeout of asynchronous requests.
+     */
+    protected SseEmitter createEmitter() {
+        return new SseEmitter();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat = true;
+            subscriber.schedule();
+        }
+    }
+
+    /**
+     * The dropStalledSubscribers method is used to disconnect the subscribers whose current write takes longer
+     * than the send timeout. The blocked sender is interrupted and the emitter is completed on a virtual thread
+     * of its own, because completing it waits for the write to release the emitter.
+     */
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long startedAt = subscriber.sendStartedAt;
+            Thread sender = subscriber.sender;
+            if (startedAt != 0 && now - startedAt > sendTimeoutNanos && subscribers.remove(subscriber)) {
+                subscriber.dropped = true;
+                log.debug("Task stream subscriber dropped after a send of more than {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+                if (sender != null) {
+                    sender.interrupt();
+                }
+                Thread.ofVirtual().start(() -> subscriber.emitter.completeWithError(
+                        new TimeoutException("Task stream send timed out")));
+            }
+        }
+    }
+
+    /**
+     * The resumePosition method is used to find the position that follows the given event id in the ring.
+     * It must be called while holding the ring.
+     *
+     * @param lastEventId the id of the last event the client received.
+     * @return the position to resume from, or -1 when the event is not in the ring.
+     */
+    private long resumePosition(String lastEventId) {
+        if (lastEventId == null) {
+            return -1;
+        }
+        int separator = lastEventId.indexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            long position = Long.parseLong(lastEventId.substring(separator + 1)) + 1;
+            return position <= head && position >= head - events.length ? position : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * Subscriber class holds the position of one subscriber in the ring. Only one sender works on
+     * a subscriber at a time, and it stops before the next event once the subscriber is dropped.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * The position field is the sequence number of the next event to send.
+         */
+        private volatile long position;
+
+        private volatile boolean reset;
+
+        private volatile boolean heartbeat;
+
+        private volatile boolean dropped;
+
+        /**
+         * The sendStartedAt field is the System.nanoTime of the start of the current write, or 0 between writes.
+         */
+        private volatile long sendStartedAt;
+
+        private volatile Thread sender;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void send() {
+            sender = Thread.currentThread();
+            try {
+                if (dropped) {
+                    emitter.complete();
+                    return;
+                }
+                if (reset) {
+                    reset = false;
+                    write(SseEmitter.event().name(RESET_EVENT).data(RESET_EVENT));
+                }
+                String[] pending;
+                long from = position;
+                synchronized (events) {
+                    if (from < head - events.length) {
+                        // Overwritten before it could be sent; only possible when the buffer is the whole ring
+                        from = head;
+                        position = from;
+                        reset = true;
+                    }
+                    pending = new String[(int) (head - from)];
+                    for (int i = 0; i < pending.length; i++) {
+                        pending[i] = events[(int) ((from + i) % events.length)];
+                    }
+                }
+                for (String data : pending) {
+                    if (dropped) {
+                        break;
+                    }
+                    write(SseEmitter.event().id(eventId(from)).data(data));
+                    position = ++from;
+                }
+                if (pending.length == 0 && heartbeat && !dropped) {
+                    write(SseEmitter.event().comment(""));
+                }
+                heartbeat = false;
+            } catch (IOException | IllegalStateException e) {
+                // The client is gone or too slow; the container or dropStalledSubscribers completes the emitter
+                subscribers.remove(this);
+                dropped = true;
+                log.debug("Task stream subscriber disconnected: {}", e.getMessage());
+                return;
+            } finally {
+                sender = null;
+                scheduled.set(false);
+            }
+            if (dropped || reset || position < head()) {
+                schedule();
+            }
+        }
+
+        /**
+         * The write method is used to send one event while exposing its start to dropStalledSubscribers.
+         *
+         * @param event the event to send.
+         * @throws IOException when the client is gone or the write is interrupted.
+         */
+        private void write(SseEmitter.SseEventBuilder event) throws IOException {
+            sendStartedAt = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+    }
+
+    private long head() {
+        synchronized (events) {
+            return head;
+        }
+    }
+}
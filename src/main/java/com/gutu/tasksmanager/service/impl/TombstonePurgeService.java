@@ -0,0 +1,74 @@
+package com.gutu.tasksmanager.service.impl;
+
+import com.gutu.tasksmanager.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TombstonePurgeService class removes the tombstones of the deleted tasks once they have outlived their
+ * retention, in the background. A change feed cursor older than the retention is refused, so no consumer
+ * can miss a deletion whose tombstone is gone.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+@Service
+@Slf4j
+@Profile("!reactive")
+public class TombstonePurgeService {
+
+    private final TaskRepository taskRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration retention;
+
+    private final ScheduledExecutorService purges;
+
+    public TombstonePurgeService(TaskRepository taskRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${tasks.changes.tombstone-retention:30d}") Duration retention,
+                                 @Value("${tasks.changes.tombstone-purge-interval:1h}") Duration purgeInterval) {
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.purges = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("tombstone-purge")
+                .daemon().factory());
+        purges.scheduleWithFixedDelay(this::purge, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        purges.shutdownNow();
+    }
+
+    /**
+     * The purge method is used to remove the tombstones older than the retention, measured on the clock of
+     * the instance like the retention of the change feed cursors.
+     *
+     * @return the number of tombstones removed.
+     */
+    int purge() {
+        try {
+            Integer removed = transactionTemplate.execute(status ->
+                    taskRepository.deleteTombstonesBefore(OffsetDateTime.now().minus(retention)));
+            log.debug("Removed {} expired tombstones", removed);
+            return removed == null ? 0 : removed;
+        } catch (RuntimeException e) {
+            log.warn("Removing the expired tombstones failed: {}", e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.gutu.tasksmanager.utils;
+
+import com.gutu.tasksmanager.exception.ValidationException;
+import com.gutu.tasksmanager.repository.specification.TaskSort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * TaskCursor class is used to encode and decode the opaque cursors of the task pages.
+ * The cursor holds the order of the listing and the sort key of the last task of a page,
+ * so the next page starts right after it. Change feed cursors hold the position of the last change read.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public final class TaskCursor {
+
+    private static final String SEPARATOR = ":";
+
+    /**
+     * The prefix of the change feed cursors, which no listing order shares.
+     */
+    private static final String CHANGES = "CHANGES";
+
+    private final long lastId;
+
+    private final OffsetDateTime lastValue;
+
+    private TaskCursor(long lastId, OffsetDateTime lastValue) {
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * @return the id of the last task of the previous page.
+     */
+    public long getLastId() {
+        return lastId;
+    }
+
+    /**
+     * @return the value of the sort attribute of the last task of the previous page, or null when sorted by id.
+     */
+    public OffsetDateTime getLastValue() {
+        return lastValue;
+    }
+
+    /**
+     * The encode method is used to build the cursor pointing after the given task.
+     *
+     * @param sort the order of the listing.
+     * @param lastId the id of the last task of the current page.
+     * @param lastValue the value of the sort attribute of the last task, ignored when sorted by id.
+     * @return the opaque cursor.
+     */
+    public static String encode(TaskSort sort, long lastId, OffsetDateTime lastValue) {
+        return encode(sort.name(), lastId, sort.getAttribute() == null ? null : lastValue);
+    }
+
+    /**
+     * The encodeChange method is used to build the change feed cursor pointing after the given change.
+     *
+     * @param lastId the id of the last change read.
+     * @param lastChangedAt the time of the last change read.
+     * @return the opaque cursor.
+     */
+    public static String encodeChange(long lastId, OffsetDateTime lastChangedAt) {
+        return encode(CHANGES, lastId, lastChangedAt);
+    }
+
+    /**
+     * The decode method is used to read a cursor of a listing in the given order.
+     *
+     * @param cursor the opaque cursor.
+     * @param sort the order of the listing the cursor is used for.
+     * @return the decoded cursor.
+     */
+    public static TaskCursor decode(String cursor, TaskSort sort) {
+        return decode(cursor, sort.name(), sort.getAttribute() != null);
+    }
+
+    /**
+     * The decodeChange method is used to read a change feed cursor.
+     *
+     * @param cursor the opaque cursor.
+     * @return the decoded cursor, whose last value is the time of the last change read.
+     */
+    public static TaskCursor decodeChange(String cursor) {
+        return decode(cursor, CHANGES, true);
+    }
+
+    private static String encode(String prefix, long lastId, OffsetDateTime lastValue) {
+        String value = prefix + SEPARATOR + lastId;
+        if (lastValue != null) {
+            value += SEPARATOR + lastValue.toInstant();
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static TaskCursor decode(String cursor, String prefix, boolean hasValue) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split(SEPARATOR, 3);
+            // A cursor is only valid for the listing it was issued by
+            if (!parts[0].equals(prefix) || parts.length != (hasValue ? 3 : 2)) {
+                throw new ValidationException("Invalid cursor");
+            }
+            long lastId = Long.parseLong(parts[1]);
+            OffsetDateTime lastValue = parts.length == 3
+                    ? OffsetDateTime.ofInstant(Instant.parse(parts[2]), ZoneOffset.UTC)
+                    : null;
+            return new TaskCursor(lastId, lastValue);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
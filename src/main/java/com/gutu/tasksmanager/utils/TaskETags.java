@@ -0,0 +1,109 @@
+package com.gutu.tasksmanager.utils;
+
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * TaskETags class is used to build the entity tags of the task responses.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public final class TaskETags {
+
+    private TaskETags() {
+    }
+
+    private static final String VERSION_SEPARATOR = "-v";
+
+    /**
+     * The LIST_TAG_BYTES constant is the number of bytes of the digest kept in the entity tag of a list.
+     */
+    private static final int LIST_TAG_BYTES = 16;
+
+    /**
+     * The forTask method is used to build the strong entity tag of a single task from its id and version.
+     *
+     * @param task the task details.
+     * @return the quoted entity tag.
+     */
+    public static String forTask(TaskWithDetails task) {
+        return forTask(task.getId(), task.getVersion());
+    }
+
+    /**
+     * The forTask method is used to build the strong entity tag of a single task from its id and version.
+     *
+     * @param id the task id.
+     * @param version the task version.
+     * @return the quoted entity tag.
+     */
+    public static String forTask(Long id, Long version) {
+        return quote(id + VERSION_SEPARATOR + (version == null ? 0L : version));
+    }
+
+    /**
+     * The parseVersion method is used to read the task version from an If-Match value.
+     *
+     * @param ifMatch the If-Match header value.
+     * @param id the id of the task the header was sent for.
+     * @return the version, or null when the value is not a strong entity tag of the given task.
+     */
+    public static Long parseVersion(String ifMatch, Long id) {
+        String value = ifMatch.trim();
+        if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return null;
+        }
+        String prefix = id + VERSION_SEPARATOR;
+        value = value.substring(1, value.length() - 1);
+        if (!value.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The forTaskList method is used to build the strong entity tag of a list of tasks from the ids and versions
+     * of the listed tasks, so it changes whenever a listed task is updated, deleted or replaced by another one.
+     *
+     * @param tasks the listed tasks.
+     * @param next the cursor of the next page, or null when there is none.
+     * @return the quoted entity tag.
+     */
+    public static String forTaskList(List<TaskWithDetails> tasks, String next) {
+        MessageDigest digest = sha256();
+        StringBuilder entry = new StringBuilder();
+        for (TaskWithDetails task : tasks) {
+            entry.setLength(0);
+            entry.append(task.getId()).append(VERSION_SEPARATOR).append(task.getVersion() == null ? 0L : task.getVersion())
+                    .append(';');
+            digest.update(entry.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        if (next != null) {
+            digest.update(next.getBytes(StandardCharsets.US_ASCII));
+        }
+        return quote("list-" + HexFormat.of().formatHex(digest.digest(), 0, LIST_TAG_BYTES));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
@@ -1,9 +1,18 @@
 package com.gutu.tasksmanager.utils;
 
 import com.gutu.tasksmanager.exception.ValidationException;
+import com.gutu.tasksmanager.models.model.BulkStatusRequest;
 import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.PatchTaskRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.apache.commons.text.StringEscapeUtils;
+import org.apache.commons.text.translate.EntityArrays;
+
+import java.time.OffsetDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -16,16 +25,38 @@ import java.util.regex.Pattern;
 @Component
 public class TaskRequestValidator {
 
-    // Pattern for basic input validation (allows letters, numbers, spaces, and basic punctuation)
-    private static final Pattern SAFE_INPUT_PATTERN = Pattern.compile("^[\\p{L}\\p{N}\\s.,!?-]{1,}$");
+    // Keywords of common SQL injection attempts, searched only in inputs without line terminators
+    private static final Pattern SQL_KEYWORD_PATTERN =
+            Pattern.compile("(?i)\\b(select|insert|update|delete|drop|union|exec|declare)\\b");
+
+    // Markers of XSS attempts, searched only in inputs without line terminators that contain '<', ':' or '='
+    private static final Pattern XSS_MARKER_PATTERN =
+            Pattern.compile("(?i)<script|javascript:|onload=|onerror=|<img|<iframe");
+
+    private static final Set<String> STATUSES = Set.of("TODO", "IN_PROGRESS", "DONE");
 
-    // Pattern for detecting common SQL injection attempts
-    private static final Pattern SQL_INJECTION_PATTERN =
-            Pattern.compile("(?i).*(\\b(select|insert|update|delete|drop|union|exec|declare)\\b).*");
+    // Characters that HTML 4 escaping would replace with a named entity
+    private static final BitSet HTML_ESCAPED_CHARS = new BitSet();
 
-    // Pattern for detecting XSS attempts
-    private static final Pattern XSS_PATTERN =
-            Pattern.compile("(?i).*(<script|javascript:|onload=|onerror=|<img|<iframe).*");
+    static {
+        for (Map<CharSequence, CharSequence> entities : List.of(EntityArrays.BASIC_ESCAPE,
+                EntityArrays.ISO8859_1_ESCAPE, EntityArrays.HTML40_EXTENDED_ESCAPE)) {
+            entities.keySet().forEach(key -> HTML_ESCAPED_CHARS.set(key.charAt(0)));
+        }
+    }
+
+    // Flags collected by the single scan of an input
+    private static final int LINE_TERMINATOR = 1;
+    private static final int XSS_MARKER_CHAR = 1 << 1;
+    private static final int UNSAFE_CHAR = 1 << 2;
+    private static final int HTML_ESCAPED_CHAR = 1 << 3;
+
+    // Maximum number of tasks accepted by one batch create request
+    private final int maxBatchSize;
+
+    public TaskRequestValidator(@Value("${tasks.batch.max-size:1000}") int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
 
     public void validateCreateRequest(CreateUpdateTaskRequest request) {
         if (request == null) {
@@ -35,16 +66,121 @@ public class TaskRequestValidator {
     }
 
     public void validateUpdateRequest(Long id, CreateUpdateTaskRequest request) {
+        validateId(id);
+        if (request == null) {
+            throw new ValidationException("Request body cannot be null");
+        }
+        validateCommonFields(request);
+    }
+
+    public void validatePatchRequest(Long id, PatchTaskRequest request) {
+        validateId(id);
+        if (request == null) {
+            throw new ValidationException("Request body cannot be null");
+        }
+        if (request.getTitle() == null && request.getDescription() == null && request.getStatus() == null) {
+            throw new ValidationException("At least one field must be provided");
+        }
+
+        // Only the supplied fields are validated
+        if (request.getTitle() != null) {
+            if (isBlank(request.getTitle())) {
+                throw new ValidationException("Title must not be blank");
+            }
+            validateInput("title", request.getTitle(), 100);
+        }
+        if (request.getDescription() != null) {
+            if (isBlank(request.getDescription())) {
+                throw new ValidationException("Description must not be blank");
+            }
+            validateInput("description", request.getDescription(), 500);
+        }
+        if (request.getStatus() != null) {
+            validateStatus(request.getStatus());
+        }
+    }
+
+    public void validateBulkStatusRequest(BulkStatusRequest request) {
+        if (request == null) {
+            throw new ValidationException("Request body cannot be null");
+        }
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            throw new ValidationException("Ids are required");
+        }
+        if (request.getIds().size() > maxBatchSize) {
+            throw new ValidationException("Ids must not exceed " + maxBatchSize + " items");
+        }
+        for (Long id : request.getIds()) {
+            validateId(id);
+        }
+        if (request.getStatus() == null) {
+            throw new ValidationException("Status is required");
+        }
+        validateStatus(request.getStatus());
+    }
+
+    public void validateBatchCreateRequest(List<CreateUpdateTaskRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ValidationException("Batch must contain at least one task");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new ValidationException("Batch must not exceed " + maxBatchSize + " tasks");
+        }
+    }
+
+    public void validateListRequest(Integer limit, String status, OffsetDateTime createdFrom, OffsetDateTime createdTo,
+                                    OffsetDateTime updatedFrom, OffsetDateTime updatedTo) {
+        if (limit != null && limit <= 0) {
+            throw new ValidationException("Limit must be greater than 0");
+        }
+        if (status != null) {
+            validateStatus(status);
+        }
+        if (createdFrom != null && createdTo != null && !createdFrom.isBefore(createdTo)) {
+            throw new ValidationException("created_from must be before created_to");
+        }
+        if (updatedFrom != null && updatedTo != null && !updatedFrom.isBefore(updatedTo)) {
+            throw new ValidationException("updated_from must be before updated_to");
+        }
+    }
+
+    public void validateSearchRequest(String query, Integer limit) {
+        if (isBlank(query)) {
+            throw new ValidationException("Search query is required");
+        }
+        if (query.length() > 200) {
+            throw new ValidationException("Search query must not exceed 200 characters");
+        }
+        if (limit != null && limit <= 0) {
+            throw new ValidationException("Limit must be greater than 0");
+        }
+    }
+
+    public void validateChangesRequest(Integer limit) {
+        if (limit != null && limit <= 0) {
+            throw new ValidationException("Limit must be greater than 0");
+        }
+    }
+
+    public void validateIdempotencyKey(String key) {
+        if (key == null) {
+            return;
+        }
+        if (isBlank(key)) {
+            throw new ValidationException("Idempotency-Key must not be blank");
+        }
+        if (key.length() > 255) {
+            throw new ValidationException("Idempotency-Key must not exceed 255 characters");
+        }
+    }
+
+    private void validateId(Long id) {
         if (id == null) {
             throw new ValidationException("Task ID cannot be null");
         }
         if (id <= 0) {
             throw new ValidationException("Invalid task ID");
         }
-        if (request == null) {
-            throw new ValidationException("Request body cannot be null");
-        }
-        validateCommonFields(request);
     }
 
     private void validateCommonFields(CreateUpdateTaskRequest request) {
@@ -69,53 +205,92 @@ public class TaskRequestValidator {
         validateStatus(request.getStatus().getValue());
     }
 
+    /**
+     * The validateInput method is used to check a free text field in a single pass over its characters.
+     * The checks are reported in a fixed order: length, SQL keywords, XSS markers, characters outside
+     * letters, digits, whitespace and basic punctuation, and finally content that HTML escaping or
+     * trimming would change. The keyword and marker patterns only run when the scan shows they can match.
+     *
+     * @param fieldName the name of the field, used in the error messages.
+     * @param input the value of the field.
+     * @param maxLength the maximum length of the field.
+     */
     private void validateInput(String fieldName, String input, int maxLength) {
         // Length check
         if (input.length() > maxLength) {
             throw new ValidationException(fieldName + " must not exceed " + maxLength + " characters");
         }
 
+        int flags = scan(input);
+        boolean singleLine = (flags & LINE_TERMINATOR) == 0;
+
         // SQL Injection check
-        if (SQL_INJECTION_PATTERN.matcher(input).matches()) {
+        if (singleLine && SQL_KEYWORD_PATTERN.matcher(input).find()) {
             throw new ValidationException("Invalid " + fieldName + ": potential SQL injection detected");
         }
 
         // XSS check
-        if (XSS_PATTERN.matcher(input).matches()) {
+        if (singleLine && (flags & XSS_MARKER_CHAR) != 0 && XSS_MARKER_PATTERN.matcher(input).find()) {
             throw new ValidationException("Invalid " + fieldName + ": potential XSS attack detected");
         }
 
-        // Safe input pattern check
-        if (!SAFE_INPUT_PATTERN.matcher(input).matches()) {
+        // Safe input check
+        if (input.isEmpty() || (flags & UNSAFE_CHAR) != 0) {
             throw new ValidationException("Invalid " + fieldName + ": contains invalid characters");
         }
 
-        // Sanitize the input
-        String sanitized = sanitizeInput(input);
-        if (!input.equals(sanitized)) {
+        // Content that would not survive HTML escaping and trimming unchanged
+        if ((flags & HTML_ESCAPED_CHAR) != 0 || input.charAt(0) <= ' ' || input.charAt(input.length() - 1) <= ' ') {
             throw new ValidationException("Invalid " + fieldName + ": contains potentially dangerous content");
         }
     }
 
-    private void validateStatus(String status) {
-        try {
-            if (!status.matches("^(TODO|IN_PROGRESS|DONE)$")) {
-                throw new ValidationException("Invalid status value. Must be TODO, IN_PROGRESS, or DONE");
+    /**
+     * The scan method is used to classify all the characters of an input at once.
+     *
+     * @param input the input.
+     * @return the flags of the character classes found in the input.
+     */
+    private static int scan(String input) {
+        int flags = 0;
+        for (int i = 0; i < input.length(); ) {
+            int codePoint = input.codePointAt(i);
+            i += Character.charCount(codePoint);
+            switch (codePoint) {
+                case '\n', '\r', '\u0085', '\u2028', '\u2029' -> flags |= LINE_TERMINATOR;
+                case '<', ':', '=' -> flags |= XSS_MARKER_CHAR;
+                default -> {
+                }
+            }
+            if (!isSafe(codePoint)) {
+                flags |= UNSAFE_CHAR;
+            } else if (HTML_ESCAPED_CHARS.get(codePoint)) {
+                flags |= HTML_ESCAPED_CHAR;
             }
-        } catch (IllegalArgumentException e) {
-            throw new ValidationException("Invalid status value");
         }
+        return flags;
     }
 
-    private String sanitizeInput(String input) {
-        if (input == null) {
-            return null;
+    // Letters, numbers, whitespace and basic punctuation
+    private static boolean isSafe(int codePoint) {
+        switch (codePoint) {
+            case ' ', '\t', '\n', '\u000B', '\f', '\r', '.', ',', '!', '?', '-':
+                return true;
+            default:
+                break;
+        }
+        return switch (Character.getType(codePoint)) {
+            case Character.UPPERCASE_LETTER, Character.LOWERCASE_LETTER, Character.TITLECASE_LETTER,
+                 Character.MODIFIER_LETTER, Character.OTHER_LETTER, Character.DECIMAL_DIGIT_NUMBER,
+                 Character.LETTER_NUMBER, Character.OTHER_NUMBER -> true;
+            default -> false;
+        };
+    }
+
+    private void validateStatus(String status) {
+        if (!STATUSES.contains(status)) {
+            throw new ValidationException("Invalid status value. Must be TODO, IN_PROGRESS, or DONE");
         }
-        // HTML encode special characters
-        String sanitized = StringEscapeUtils.escapeHtml4(input);
-        // Remove any remaining potentially dangerous characters
-        sanitized = sanitized.replaceAll("[<>\"'%;()&+]", "");
-        return sanitized.trim();
     }
 
     private boolean isBlank(String str) {
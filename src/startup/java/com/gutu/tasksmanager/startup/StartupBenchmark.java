@@ -0,0 +1,259 @@
+package com.gutu.tasksmanager.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * StartupBenchmark class measures the time from the start of the application's JVM to the first successful
+ * GET /tasks/{id}, which is when a new instance starts to help under load. Every variant is started as
+ * a separate JVM, a number of times, against the database configured by the SPRING_DATASOURCE_* environment
+ * variables; the task read is created by a start before the measured ones.
+ * <p>
+ * The variants with class data sharing run the extracted jar with an archive recorded by a training run
+ * first, and the variants with Spring AOT need a jar built with the aot profile.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public class StartupBenchmark {
+
+    private static final long POLL_INTERVAL_MILLIS = 5;
+
+    private static final String TASK_JSON =
+            "{\"title\":\"Startup benchmark task\",\"description\":\"Read by the startup benchmark\",\"status\":\"TODO\"}";
+
+    private final StartupBenchmarkConfig config;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+    private Path extractedJar;
+
+    private Path archive;
+
+    StartupBenchmark(StartupBenchmarkConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.exit(new StartupBenchmark(StartupBenchmarkConfig.fromSystemProperties()).run() ? 0 : 1);
+    }
+
+    /**
+     * The run method is used to prepare the task and the archive, start every variant, and report the times.
+     *
+     * @return true when every start succeeded.
+     */
+    boolean run() throws Exception {
+        Files.createDirectories(config.workDir());
+        long id = createTask();
+        if (config.variants().stream().anyMatch(StartupVariant::isCds)) {
+            prepareArchive();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        boolean passed = true;
+        System.out.printf("%n%-14s %6s %9s %9s %9s%n", "variant", "runs", "min ms", "median ms", "max ms");
+        for (StartupVariant variant : config.variants()) {
+            List<Long> millis = new ArrayList<>(config.runs());
+            try {
+                for (int run = 0; run < config.runs(); run++) {
+                    millis.add(measure(variant, run, id));
+                }
+            } catch (IllegalStateException e) {
+                System.out.println("FAILED: " + e.getMessage());
+                passed = false;
+            }
+            List<Long> sorted = millis.stream().sorted().toList();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("runsMillis", millis);
+            if (!sorted.isEmpty()) {
+                result.put("minMillis", sorted.get(0));
+                result.put("medianMillis", sorted.get(sorted.size() / 2));
+                result.put("maxMillis", sorted.get(sorted.size() - 1));
+                System.out.printf("%-14s %6d %9d %9d %9d%n", variant.getName(), sorted.size(),
+                        sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1));
+            }
+            report.put(variant.getName(), result);
+        }
+
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(config.result()), report);
+        System.out.println("Report written to " + config.result());
+        return passed;
+    }
+
+    /**
+     * The createTask method is used to start the application once, with the default settings so Liquibase brings
+     * the schema up to date, and create the task that the measured starts read.
+     *
+     * @return the id of the task.
+     */
+    private long createTask() throws Exception {
+        int port = freePort();
+        Process process = start(command(StartupVariant.FAT_JAR, port), "setup");
+        try {
+            URI baseUri = URI.create("http://localhost:" + port);
+            awaitStatus(process, HttpRequest.newBuilder(baseUri.resolve("/tasks?limit=1")).GET().build(), "setup");
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(baseUri.resolve("/tasks"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(TASK_JSON))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Creating the task failed with status " + response.statusCode());
+            }
+            return objectMapper.readTree(response.body()).path("id").asLong();
+        } finally {
+            stop(process);
+        }
+    }
+
+    /**
+     * The prepareArchive method is used to extract the jar and record the class data sharing archive with a
+     * training run that stops once the application context is refreshed, the same way the Dockerfile does.
+     */
+    private void prepareArchive() throws Exception {
+        Path extracted = config.workDir().resolve("application");
+        if (Files.exists(extracted)) {
+            try (Stream<Path> paths = Files.walk(extracted)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+        exec(List.of(java, "-Djarmode=tools", "-jar", config.jar().toString(),
+                "extract", "--destination", extracted.toString()), "extract");
+        extractedJar = extracted.resolve(config.jar().getFileName());
+        archive = extracted.resolve("application.jsa");
+
+        List<String> training = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + archive,
+                "-Dspring.aot.enabled=true", "-Dspring.context.exit=onRefresh", "-jar", extractedJar.toString(),
+                "--spring.profiles.active=prod", "--spring.liquibase.enabled=false", "--server.port=0"));
+        training.addAll(config.args());
+        exec(training, "training");
+    }
+
+    /**
+     * The measure method is used to start a variant and wait for the first successful read of the task.
+     *
+     * @param variant the variant.
+     * @param run the number of the run, used to name its log.
+     * @param id the id of the task.
+     * @return the time from the start of the JVM to the first successful read, in milliseconds.
+     */
+    private long measure(StartupVariant variant, int run, long id) throws Exception {
+        int port = freePort();
+        List<String> command = command(variant, port);
+        HttpRequest read = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/tasks/" + id)).GET().build();
+        long start = System.nanoTime();
+        Process process = start(command, variant.getName() + "-" + run);
+        try {
+            awaitStatus(process, read, variant.getName() + "-" + run);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            stop(process);
+        }
+    }
+
+    private List<String> command(StartupVariant variant, int port) {
+        List<String> command = new ArrayList<>(List.of(java));
+        if (variant.isCds()) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        if (variant.isAot()) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.addAll(List.of("-jar", (variant.isCds() ? extractedJar : config.jar()).toString(),
+                "--server.port=" + port));
+        if (variant.isProdProfile()) {
+            command.add("--spring.profiles.active=prod");
+        }
+        command.addAll(config.args());
+        return command;
+    }
+
+    /**
+     * The awaitStatus method is used to send a request until it succeeds.
+     *
+     * @param process the process of the application, which must not exit in the meantime.
+     * @param request the request.
+     * @param name the name of the start, used in the error messages.
+     */
+    private void awaitStatus(Process process, HttpRequest request, String name) throws Exception {
+        long deadline = System.nanoTime() + config.timeout().toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with status " + process.exitValue()
+                        + ", see " + log(name));
+            }
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+        throw new IllegalStateException(name + " did not answer within " + config.timeout() + ", see " + log(name));
+    }
+
+    private Process start(List<String> command, String name) throws IOException {
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log(name).toFile())
+                .start();
+    }
+
+    private void exec(List<String> command, String name) throws Exception {
+        Process process = start(command, name);
+        if (!process.waitFor(config.timeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException(name + " did not finish within " + config.timeout() + ", see " + log(name));
+        }
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException(name + " exited with status " + process.exitValue() + ", see " + log(name));
+        }
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private Path log(String name) {
+        return config.workDir().resolve(name + ".log");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
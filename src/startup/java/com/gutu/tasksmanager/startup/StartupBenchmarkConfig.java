@@ -0,0 +1,51 @@
+package com.gutu.tasksmanager.startup;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * StartupBenchmarkConfig class holds the settings of a startup benchmark run, read from the startup.* system
+ * properties.
+ *
+ * @param jar the packaged application.
+ * @param variants the ways the application is started, in the order they are measured.
+ * @param runs the number of measured starts of every variant.
+ * @param timeout the longest time a start may take.
+ * @param args the application arguments added to every start, e.g. the datasource settings.
+ * @param workDir the directory of the extracted jar, the class data sharing archive and the logs.
+ * @param result the path of the JSON report.
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public record StartupBenchmarkConfig(Path jar,
+                                     List<StartupVariant> variants,
+                                     int runs,
+                                     Duration timeout,
+                                     List<String> args,
+                                     Path workDir,
+                                     String result) {
+
+    /**
+     * The fromSystemProperties method is used to read the configuration, falling back to the defaults.
+     *
+     * @return the configuration of the run.
+     */
+    public static StartupBenchmarkConfig fromSystemProperties() {
+        String args = System.getProperty("startup.args", "");
+        return new StartupBenchmarkConfig(
+                Path.of(System.getProperty("startup.jar", "target/tasks-manager-0.0.1-SNAPSHOT.jar")),
+                Arrays.stream(System.getProperty("startup.variants", "fat-jar,prod,prod-aot,prod-aot-cds").split(","))
+                        .map(StartupVariant::fromName)
+                        .toList(),
+                Integer.getInteger("startup.runs", 5),
+                DurationStyle.detectAndParse(System.getProperty("startup.timeout", "2m")),
+                args.isBlank() ? List.of() : List.of(args.trim().split("\\s+")),
+                Path.of(System.getProperty("startup.work-dir", "target/startup")),
+                System.getProperty("startup.result", "target/startup-result.json"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.gutu.tasksmanager.startup;
+
+import java.util.Arrays;
+
+/**
+ * StartupVariant enum lists the ways the packaged application is started by the startup benchmark.
+ *
+ * @author gutu.daniil
+ * @version 1.0
+ * @since 06.03.2025
+ */
+public enum StartupVariant {
+
+    /**
+     * The fat jar with the default settings, as the application was started before the prod profile existed.
+     */
+    FAT_JAR("fat-jar", false, false, false),
+
+    /**
+     * The fat jar with the prod profile, so Liquibase is the only schema manager.
+     */
+    PROD("prod", true, false, false),
+
+    /**
+     * The fat jar with the prod profile and the bean definitions generated by Spring AOT.
+     */
+    PROD_AOT("prod-aot", true, true, false),
+
+    /**
+     * The extracted jar with the prod profile, Spring AOT and a class data sharing archive, as in the Dockerfile.
+     */
+    PROD_AOT_CDS("prod-aot-cds", true, true, true);
+
+    private final String name;
+
+    private final boolean prodProfile;
+
+    private final boolean aot;
+
+    private final boolean cds;
+
+    StartupVariant(String name, boolean prodProfile, boolean aot, boolean cds) {
+        this.name = name;
+        this.prodProfile = prodProfile;
+        this.aot = aot;
+        this.cds = cds;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isProdProfile() {
+        return prodProfile;
+    }
+
+    public boolean isAot() {
+        return aot;
+    }
+
+    public boolean isCds() {
+        return cds;
+    }
+
+    /**
+     * The fromName method is used to find a variant by its name, as used in startup.variants.
+     *
+     * @param name the name of the variant.
+     * @return the variant.
+     */
+    public static StartupVariant fromName(String name) {
+        return Arrays.stream(values())
+                .filter(variant -> variant.name.equals(name.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown startup variant: " + name));
+    }
+}
@@ -0,0 +1,89 @@
+package com.gutu.tasksmanager.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiter(4, 2, 6, Duration.ofMillis(100), 0.5, clock::get);
+
+    @Test
+    void testTryAcquire_RejectsBeyondLimit() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        assertFalse(limiter.tryAcquire());
+        assertEquals(4, limiter.getInFlight());
+    }
+
+    @Test
+    void testRelease_FastRequestsAtTheLimitRaiseIt() {
+        for (int round = 0; round < 3; round++) {
+            int admitted = 0;
+            while (limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(FAST, false);
+            }
+        }
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void testRelease_FastRequestsBelowTheLimitKeepIt() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, false);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void testRelease_SlowBurstBacksOffOnce() {
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(SLOW, false);
+        }
+        assertEquals(2, limiter.getLimit());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        limiter.tryAcquire();
+        limiter.release(0, true);
+
+        assertEquals(2, limiter.getLimit(), "The limit does not go below its minimum");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testRelease_LimitCappedAtMaximum() {
+        for (int i = 0; i < 1000; i++) {
+            int admitted = 0;
+            while (limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int j = 0; j < admitted; j++) {
+                limiter.release(FAST, false);
+            }
+        }
+
+        assertEquals(6, limiter.getLimit());
+    }
+}
@@ -0,0 +1,104 @@
+package com.gutu.tasksmanager.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AdaptiveConcurrencyLimiter readLimiter =
+            new AdaptiveConcurrencyLimiter(1, 1, 10, Duration.ofSeconds(1), 0.9);
+
+    private final AdaptiveConcurrencyLimiter writeLimiter =
+            new AdaptiveConcurrencyLimiter(1, 1, 10, Duration.ofSeconds(1), 0.9);
+
+    private final AdmissionControlFilter filter =
+            new AdmissionControlFilter(readLimiter, writeLimiter, Duration.ofMillis(1500), meterRegistry);
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final FilterChain chain = (request, response) -> calls.incrementAndGet();
+
+    @Test
+    void testDoFilter_AdmitsWithinLimit() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/tasks"), response, chain);
+
+        assertEquals(1, calls.get());
+        assertEquals(200, response.getStatus());
+        assertEquals(0, readLimiter.getInFlight());
+    }
+
+    @Test
+    void testDoFilter_RejectsWhenFull() throws Exception {
+        assertTrue(readLimiter.tryAcquire());
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/tasks/1"), response, chain);
+
+        assertEquals(0, calls.get());
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("error"));
+        assertEquals(1.0, meterRegistry.get("tasks.admission.rejected").tag("kind", "read").counter().count());
+    }
+
+    @Test
+    void testDoFilter_ReadsAndWritesHaveSeparateBudgets() throws Exception {
+        assertTrue(readLimiter.tryAcquire());
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/tasks"), response, chain);
+
+        assertEquals(1, calls.get());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void testDoFilter_StreamIsNotLimited() throws Exception {
+        assertTrue(readLimiter.tryAcquire());
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/tasks/stream"), new MockHttpServletResponse(), chain);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testDoFilter_ExportIsNotLimited() throws Exception {
+        assertTrue(readLimiter.tryAcquire());
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/tasks/export"), new MockHttpServletResponse(), chain);
+
+        assertEquals(1, calls.get());
+        assertEquals(1, readLimiter.getInFlight());
+    }
+
+    @Test
+    void testDoFilter_HoldsPermitUntilAsyncCompletes() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/tasks/search");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1, readLimiter.getInFlight());
+        request.getAsyncContext().complete();
+        assertEquals(0, readLimiter.getInFlight());
+        filter.doFilter(new MockHttpServletRequest("GET", "/tasks"), new MockHttpServletResponse(), chain);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testMetrics_PublishLimits() {
+        assertEquals(1.0, meterRegistry.get("tasks.admission.limit").tag("kind", "write").gauge().value());
+    }
+}
@@ -0,0 +1,90 @@
+package com.gutu.tasksmanager.configuration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoundedDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    @Mock
+    private Connection connection;
+
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(targetDataSource.getConnection()).thenReturn(connection);
+        dataSource = new BoundedDataSource(targetDataSource, 2, Duration.ofMillis(100));
+    }
+
+    @Test
+    void testGetConnection_PermitReleasedOnceOnClose() throws SQLException {
+        Connection borrowed = dataSource.getConnection();
+        assertEquals(1, dataSource.getAvailablePermits());
+
+        borrowed.close();
+        borrowed.close();
+
+        assertEquals(2, dataSource.getAvailablePermits());
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void testGetConnection_TimesOutWhenAllPermitsTaken() throws SQLException {
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        verify(targetDataSource, times(2)).getConnection();
+    }
+
+    @Test
+    void testGetConnection_WaitsForReleasedPermit() throws Exception {
+        dataSource = new BoundedDataSource(targetDataSource, 1, Duration.ofSeconds(5));
+        Connection borrowed = dataSource.getConnection();
+
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(waiting.isDone());
+
+        borrowed.close();
+        assertNotNull(waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testGetConnection_PermitReleasedWhenTargetFails() throws SQLException {
+        when(targetDataSource.getConnection()).thenThrow(new SQLException("down"));
+
+        assertThrows(SQLException.class, () -> dataSource.getConnection());
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void testUnwrap_ReachesTargetConnection() throws SQLException {
+        when(connection.unwrap(Connection.class)).thenReturn(connection);
+
+        assertSame(connection, dataSource.getConnection().unwrap(Connection.class));
+    }
+}
@@ -0,0 +1,131 @@
+package com.gutu.tasksmanager.configuration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ReplicaDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource firstReplica;
+
+    @Mock
+    private DataSource secondReplica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection firstConnection;
+
+    @Mock
+    private Connection secondConnection;
+
+    private final AtomicBoolean firstReplicaDown = new AtomicBoolean();
+
+    private final AtomicBoolean secondReplicaDown = new AtomicBoolean();
+
+    private ReplicaDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        stubReplica(firstReplica, firstConnection, firstReplicaDown);
+        stubReplica(secondReplica, secondConnection, secondReplicaDown);
+        dataSource = new ReplicaDataSource(primary, List.of(firstReplica, secondReplica), Duration.ofMinutes(1));
+        dataSource.checkHealth();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dataSource.close();
+    }
+
+    @Test
+    void testGetConnection_RoundRobinOverReplicas() throws SQLException {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        assertEquals(Set.of(firstConnection, secondConnection), Set.of(first, second));
+        assertSame(first, dataSource.getConnection());
+    }
+
+    @Test
+    void testGetConnection_EjectsFailingReplica() throws SQLException {
+        firstReplicaDown.set(true);
+
+        for (int i = 0; i < 4; i++) {
+            assertSame(secondConnection, dataSource.getConnection());
+        }
+        assertEquals(1, dataSource.getHealthyReplicaCount());
+    }
+
+    @Test
+    void testGetConnection_FallsBackToPrimary() throws SQLException {
+        firstReplicaDown.set(true);
+        secondReplicaDown.set(true);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertEquals(0, dataSource.getHealthyReplicaCount());
+    }
+
+    @Test
+    void testCheckHealth_BringsBackRecoveredReplica() throws SQLException {
+        firstReplicaDown.set(true);
+        dataSource.checkHealth();
+        assertEquals(1, dataSource.getHealthyReplicaCount());
+
+        firstReplicaDown.set(false);
+        dataSource.checkHealth();
+
+        assertEquals(2, dataSource.getHealthyReplicaCount());
+    }
+
+    @Test
+    void testCheckHealth_EjectsReplicaWithInvalidConnection() throws SQLException {
+        when(secondConnection.isValid(anyInt())).thenReturn(false);
+
+        dataSource.checkHealth();
+
+        assertEquals(1, dataSource.getHealthyReplicaCount());
+        assertSame(firstConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void testClose_ClosesReplicas() throws Exception {
+        var closeableReplica = mock(DataSource.class, withSettings().extraInterfaces(AutoCloseable.class));
+        var replicaDataSource = new ReplicaDataSource(primary, List.of(closeableReplica), Duration.ofMinutes(1));
+
+        replicaDataSource.close();
+
+        verify((AutoCloseable) closeableReplica).close();
+    }
+
+    private static void stubReplica(DataSource replica, Connection connection, AtomicBoolean down) throws SQLException {
+        when(replica.getConnection()).thenAnswer(invocation -> {
+            if (down.get()) {
+                throw new SQLException("down");
+            }
+            return connection;
+        });
+        when(connection.isValid(anyInt())).thenReturn(true);
+    }
+}
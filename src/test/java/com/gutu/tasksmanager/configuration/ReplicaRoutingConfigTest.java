@@ -0,0 +1,62 @@
+package com.gutu.tasksmanager.configuration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes between the in-memory test database as the primary and a second in-memory database as the replica.
+ */
+@SpringBootTest(properties = {
+        "tasks.replicas.enabled=true",
+        "tasks.replicas.urls=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "tasks.replicas.check-interval=100ms"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingConfigTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReplicaDataSource replicaDataSource;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (replicaDataSource.getHealthyReplicaCount() == 0) {
+            assertTrue(System.nanoTime() < deadline, "Replica did not become healthy in time");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void testReadOnlyTransaction_UsesReplica() {
+        assertTrue(databaseUrl(true).startsWith("jdbc:h2:mem:replica"));
+    }
+
+    @Test
+    void testReadWriteTransaction_UsesPrimary() {
+        assertTrue(databaseUrl(false).startsWith("jdbc:h2:mem:testdb"));
+    }
+
+    private String databaseUrl(boolean readOnly) {
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getURL()));
+    }
+}
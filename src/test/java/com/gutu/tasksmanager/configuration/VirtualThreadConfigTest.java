@@ -0,0 +1,63 @@
+package com.gutu.tasksmanager.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadConfigTest {
+
+    private final BeanPostProcessor postProcessor = VirtualThreadConfig.boundedDataSourcePostProcessor();
+
+    @Test
+    void testPostProcessor_PermitsMatchPoolSize() {
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setMaximumPoolSize(7);
+
+        Object bean = postProcessor.postProcessAfterInitialization(hikari, "dataSource");
+
+        BoundedDataSource bounded = assertInstanceOf(BoundedDataSource.class, bean);
+        assertEquals(7, bounded.getAvailablePermits());
+    }
+
+    @Test
+    void testPostProcessor_UnsetPoolSizeUsesHikariDefault() throws SQLException {
+        HikariDataSource hikari = new HikariDataSource();
+
+        DataSource bounded = (DataSource) postProcessor.postProcessAfterInitialization(hikari, "dataSource");
+
+        assertEquals(10, ((BoundedDataSource) bounded).getAvailablePermits());
+        assertSame(hikari, bounded.unwrap(HikariDataSource.class));
+    }
+
+    @Test
+    void testPostProcessor_ClosingContextClosesPool() {
+        HikariDataSource hikari = new HikariDataSource();
+        try (var context = new AnnotationConfigApplicationContext()) {
+            context.registerBean("boundedDataSourcePostProcessor", BeanPostProcessor.class,
+                    VirtualThreadConfig::boundedDataSourcePostProcessor);
+            // Registered like a @Bean method, whose destroy method is inferred from the bean it returns
+            context.registerBean("dataSource", DataSource.class, () -> hikari,
+                    definition -> definition.setDestroyMethodName(AbstractBeanDefinition.INFER_METHOD));
+            context.refresh();
+
+            assertInstanceOf(BoundedDataSource.class, context.getBean("dataSource"));
+            assertFalse(hikari.isClosed());
+        }
+
+        assertTrue(hikari.isClosed());
+    }
+
+    @Test
+    void testPostProcessor_OtherBeansUntouched() {
+        Object bean = new Object();
+
+        assertSame(bean, postProcessor.postProcessAfterInitialization(bean, "other"));
+    }
+}
@@ -0,0 +1,153 @@
+package com.gutu.tasksmanager.controller;
+
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.utils.TaskETags;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the reactive profile end to end against the in-memory database of the test profile.
+ * The test context only reads the web application type from the test properties, not from the profile.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles({"reactive", "test"})
+class ReactiveTaskControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void testCreateGetUpdateDelete() {
+        long todoBefore = countOf(SimpleTask.StatusEnum.TODO);
+        TaskWithDetails created = create("Reactive task", SimpleTask.StatusEnum.TODO);
+        assertNotNull(created.getId());
+        assertEquals(0L, created.getVersion());
+        assertNotNull(created.getCreatedAt());
+        assertEquals(todoBefore + 1, countOf(SimpleTask.StatusEnum.TODO));
+
+        webTestClient.get().uri("/tasks/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, TaskETags.forTask(created))
+                .expectBody(TaskWithDetails.class)
+                .value(task -> assertEquals("Reactive task", task.getTitle()));
+
+        TaskWithDetails updated = webTestClient.put().uri("/tasks/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, TaskETags.forTask(created))
+                .bodyValue(request("Reactive task updated", SimpleTask.StatusEnum.DONE))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskWithDetails.class)
+                .returnResult().getResponseBody();
+        assertEquals(1L, updated.getVersion());
+        assertEquals(SimpleTask.StatusEnum.DONE, updated.getStatus());
+        assertEquals(todoBefore, countOf(SimpleTask.StatusEnum.TODO));
+
+        webTestClient.delete().uri("/tasks/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.get().uri("/tasks/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testUpdateTask_StaleIfMatchIsRejected() {
+        TaskWithDetails created = create("Versioned task", SimpleTask.StatusEnum.TODO);
+        String staleETag = TaskETags.forTask(created);
+        webTestClient.put().uri("/tasks/{id}", created.getId())
+                .bodyValue(request("First writer", SimpleTask.StatusEnum.IN_PROGRESS))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.put().uri("/tasks/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, staleETag)
+                .bodyValue(request("Second writer", SimpleTask.StatusEnum.DONE))
+                .exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    void testUpdateTask_NotFound() {
+        webTestClient.put().uri("/tasks/{id}", Long.MAX_VALUE)
+                .bodyValue(request("Missing task", SimpleTask.StatusEnum.DONE))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testCreateTask_InvalidRequest() {
+        webTestClient.post().uri("/tasks")
+                .bodyValue(request("", SimpleTask.StatusEnum.TODO))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testGetTasks_StreamsInIdOrder() {
+        create("Streamed task one", SimpleTask.StatusEnum.IN_PROGRESS);
+        create("Streamed task two", SimpleTask.StatusEnum.IN_PROGRESS);
+
+        List<TaskWithDetails> tasks = webTestClient.get().uri("/tasks?status=IN_PROGRESS&limit=100")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(TaskWithDetails.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertTrue(tasks.size() >= 2);
+        assertTrue(tasks.stream().allMatch(task -> task.getStatus() == SimpleTask.StatusEnum.IN_PROGRESS));
+        for (int i = 1; i < tasks.size(); i++) {
+            assertTrue(tasks.get(i - 1).getId() < tasks.get(i).getId());
+        }
+
+        webTestClient.get().uri("/tasks?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(TaskWithDetails.class).hasSize(1);
+    }
+
+    private TaskWithDetails create(String title, SimpleTask.StatusEnum status) {
+        return webTestClient.post().uri("/tasks")
+                .bodyValue(request(title, status))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(TaskWithDetails.class)
+                .returnResult().getResponseBody();
+    }
+
+    private static CreateUpdateTaskRequest request(String title, SimpleTask.StatusEnum status) {
+        CreateUpdateTaskRequest request = new CreateUpdateTaskRequest();
+        request.setTitle(title);
+        request.setDescription("Created through the reactive stack");
+        request.setStatus(status);
+        return request;
+    }
+
+    private long countOf(SimpleTask.StatusEnum status) {
+        return databaseClient.sql("SELECT SUM(task_count) AS total FROM task_status_counts WHERE status = :status")
+                .bind("status", status.name())
+                .map(row -> row.get("total", Number.class).longValue())
+                .one()
+                .block();
+    }
+}
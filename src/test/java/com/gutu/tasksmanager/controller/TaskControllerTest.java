@@ -1,24 +1,58 @@
 package com.gutu.tasksmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gutu.tasksmanager.exception.PreconditionFailedException;
+import com.gutu.tasksmanager.exception.handler.GlobalExceptionHandler;
+import com.gutu.tasksmanager.exception.ValidationException;
 import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.PatchTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskChanges;
+import com.gutu.tasksmanager.models.model.TaskPage;
+import com.gutu.tasksmanager.models.model.TaskStats;
 import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.repository.specification.TaskFilter;
+import com.gutu.tasksmanager.repository.specification.TaskSort;
 import com.gutu.tasksmanager.service.ITaskService;
+import com.gutu.tasksmanager.service.impl.GroupCommitTaskWriter;
+import com.gutu.tasksmanager.service.impl.IdempotencyService;
+import com.gutu.tasksmanager.service.impl.TaskStreamService;
+import com.gutu.tasksmanager.utils.TaskETags;
 import com.gutu.tasksmanager.utils.TaskRequestValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import static org.hamcrest.Matchers.matchesPattern;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -36,6 +70,18 @@ class TaskControllerTest {
     @Mock
     private TaskRequestValidator taskRequestValidator;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private TaskStreamService taskStreamService;
+
+    @Mock
+    private ObjectProvider<GroupCommitTaskWriter> groupCommitTaskWriterProvider;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -55,6 +101,64 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.id").value(1L));
     }
 
+    @Test
+    void testCreateTask_GroupCommit() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        GroupCommitTaskWriter groupCommitTaskWriter = mock(GroupCommitTaskWriter.class);
+        when(groupCommitTaskWriter.createTask(any(CreateUpdateTaskRequest.class))).thenReturn(task);
+        when(groupCommitTaskWriterProvider.getIfAvailable()).thenReturn(groupCommitTaskWriter);
+        mockMvc = MockMvcBuilders.standaloneSetup(new TaskController(taskService, taskRequestValidator, objectMapper,
+                taskStreamService, groupCommitTaskWriterProvider, idempotencyService)).build();
+
+        mockMvc.perform(post("/tasks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Test Task\",\"description\":\"Test Description\",\"status\":\"NEW\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1L));
+
+        verify(taskService, never()).createTask(any(CreateUpdateTaskRequest.class));
+    }
+
+    @Test
+    void testCreateTask_IdempotencyKey() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        when(taskService.createTask(any(CreateUpdateTaskRequest.class))).thenReturn(task);
+        when(idempotencyService.execute(eq("key-1"), eq("POST /tasks"), any(), eq(TaskWithDetails.class), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+
+        mockMvc.perform(post("/tasks")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Test Task\",\"description\":\"Test Description\",\"status\":\"TODO\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1L));
+
+        verify(taskRequestValidator).validateIdempotencyKey("key-1");
+        verify(taskService).createTask(any(CreateUpdateTaskRequest.class));
+    }
+
+    @Test
+    void testCreateTasks() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        doThrow(new ValidationException("Title is required"))
+                .when(taskRequestValidator).validateCreateRequest(argThat(request -> request.getTitle() == null));
+        when(taskService.createTasks(anyList())).thenReturn(Collections.singletonList(task));
+
+        mockMvc.perform(post("/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"title\":\"Test Task\",\"description\":\"Test Description\",\"status\":\"TODO\"},"
+                                + "{\"description\":\"Test Description\",\"status\":\"TODO\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].task.id").value(1L))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andExpect(jsonPath("$[1].error").value("Title is required"));
+    }
+
     @Test
     void testGetAllTasks() throws Exception {
         TaskWithDetails task = new TaskWithDetails();
@@ -63,11 +167,151 @@ class TaskControllerTest {
         when(taskService.getAllTasks()).thenReturn(tasks);
 
         mockMvc.perform(get("/tasks")
+                        .param("unpaged", "true")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(1L));
     }
 
+    @Test
+    void testGetTasksPage() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        TaskPage page = new TaskPage();
+        page.setItems(Collections.singletonList(task));
+        page.setNext("next-cursor");
+        when(taskService.getTasksPage(any(TaskFilter.class), eq("cursor"), eq(10))).thenReturn(page);
+
+        mockMvc.perform(get("/tasks")
+                        .param("cursor", "cursor")
+                        .param("limit", "10")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.next").value("next-cursor"));
+    }
+
+    @Test
+    void testGetTasksPage_Filtered() throws Exception {
+        TaskPage page = new TaskPage();
+        page.setItems(Collections.emptyList());
+        when(taskService.getTasksPage(any(TaskFilter.class), isNull(), isNull())).thenReturn(page);
+
+        mockMvc.perform(get("/tasks")
+                        .param("status", "DONE")
+                        .param("updated_from", "2025-03-01T00:00:00Z")
+                        .param("sort", "-updated_at")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(taskService).getTasksPage(argThat(filter -> filter.status() == SimpleTask.StatusEnum.DONE
+                && filter.updatedFrom().toInstant().equals(OffsetDateTime.parse("2025-03-01T00:00:00Z").toInstant())
+                && filter.sort() == TaskSort.UPDATED_AT_DESC), isNull(), isNull());
+    }
+
+    @Test
+    void testGetTasksPage_InvalidSort() throws Exception {
+        mockMvc.perform(get("/tasks")
+                        .param("sort", "title")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(taskService, never()).getTasksPage(any(), any(), any());
+    }
+
+    @Test
+    void testGetChanges() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        TaskChanges changes = new TaskChanges();
+        changes.setItems(Collections.singletonList(task));
+        changes.setDeleted(List.of(2L));
+        changes.setCursor("next-cursor");
+        changes.setHasMore(false);
+        when(taskService.getChanges("cursor", 100)).thenReturn(changes);
+
+        mockMvc.perform(get("/tasks/changes")
+                        .param("since", "cursor")
+                        .param("limit", "100")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.deleted[0]").value(2L))
+                .andExpect(jsonPath("$.cursor").value("next-cursor"))
+                .andExpect(jsonPath("$.has_more").value(false));
+    }
+
+    @Test
+    void testStreamTasks() throws Exception {
+        when(taskStreamService.subscribe("abc-41")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/tasks/stream")
+                        .header("Last-Event-ID", "abc-41")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(taskStreamService).subscribe("abc-41");
+    }
+
+    @Test
+    void testGetAllTasks_NotModified() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        task.setVersion(2L);
+        TaskPage page = new TaskPage();
+        page.setItems(Collections.singletonList(task));
+        when(taskService.getTasksPage(any(TaskFilter.class), isNull(), isNull())).thenReturn(page);
+        String eTag = TaskETags.forTaskList(page.getItems(), null);
+
+        mockMvc.perform(get("/tasks")
+                        .header("If-None-Match", eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testGetAllTasks_ModifiedWhenListedTaskChanges() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        task.setVersion(2L);
+        TaskPage page = new TaskPage();
+        page.setItems(Collections.singletonList(task));
+        when(taskService.getTasksPage(any(TaskFilter.class), isNull(), isNull())).thenReturn(page);
+        String eTag = TaskETags.forTaskList(page.getItems(), null);
+        task.setVersion(3L);
+
+        mockMvc.perform(get("/tasks")
+                        .header("If-None-Match", eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", TaskETags.forTaskList(page.getItems(), null)))
+                .andExpect(jsonPath("$.items[0].version").value(3L));
+    }
+
+    @Test
+    void testExportTasks() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<TaskWithDetails> consumer = invocation.getArgument(0);
+            for (long id = 1; id <= 2; id++) {
+                TaskWithDetails task = new TaskWithDetails();
+                task.setId(id);
+                consumer.accept(task);
+            }
+            return null;
+        }).when(taskService).exportTasks(any());
+
+        MvcResult result = mockMvc.perform(get("/tasks/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(matchesPattern("(\\{.*\"id\":\\d+.*}\\n){2}")));
+    }
+
     @Test
     void testGetTaskById() throws Exception {
         TaskWithDetails task = new TaskWithDetails();
@@ -93,6 +337,94 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.id").value(1L));
     }
 
+    @Test
+    void testUpdateTask_IfMatch() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        task.setVersion(4L);
+        when(taskService.updateTask(eq(1L), any(CreateUpdateTaskRequest.class), eq(3L))).thenReturn(task);
+
+        mockMvc.perform(put("/tasks/1")
+                        .header("If-Match", "\"1-v3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated Task\",\"description\":\"Updated Description\",\"status\":\"IN_PROGRESS\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-v4\""));
+    }
+
+    @Test
+    void testUpdateTask_IfMatchConflict() throws Exception {
+        when(taskService.updateTask(eq(1L), any(CreateUpdateTaskRequest.class), eq(3L)))
+                .thenThrow(new PreconditionFailedException("Task was modified since version 3"));
+
+        mockMvc.perform(put("/tasks/1")
+                        .header("If-Match", "\"1-v3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated Task\",\"description\":\"Updated Description\",\"status\":\"IN_PROGRESS\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testUpdateTask_IfMatchOfOtherTask() throws Exception {
+        mockMvc.perform(put("/tasks/1")
+                        .header("If-Match", "\"2-v3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated Task\",\"description\":\"Updated Description\",\"status\":\"IN_PROGRESS\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(taskService, never()).updateTask(anyLong(), any(CreateUpdateTaskRequest.class), any());
+    }
+
+    @Test
+    void testUpdateTask_ConcurrentPartitionMove() throws Exception {
+        when(taskService.updateTask(anyLong(), any(CreateUpdateTaskRequest.class)))
+                .thenThrow(new CannotAcquireLockException("tuple to be locked was already moved to another partition"));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(taskController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        mockMvc.perform(put("/tasks/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated Task\",\"description\":\"Updated Description\",\"status\":\"DONE\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Task was modified concurrently, retry the request"));
+    }
+
+    @Test
+    void testPatchTask() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        task.setStatus(SimpleTask.StatusEnum.DONE);
+        when(taskService.patchTask(eq(1L), any(PatchTaskRequest.class), isNull())).thenReturn(task);
+
+        mockMvc.perform(patch("/tasks/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"DONE\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"));
+    }
+
+    @Test
+    void testPatchTask_NotFound() throws Exception {
+        when(taskService.patchTask(anyLong(), any(PatchTaskRequest.class), any())).thenReturn(null);
+
+        mockMvc.perform(patch("/tasks/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"DONE\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testUpdateStatus() throws Exception {
+        when(taskService.updateStatus(List.of(1L, 2L), SimpleTask.StatusEnum.DONE)).thenReturn(2);
+
+        mockMvc.perform(post("/tasks/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2],\"status\":\"DONE\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+    }
+
     @Test
     void testDeleteTask() throws Exception {
         when(taskService.deleteTask(anyLong())).thenReturn(true);
@@ -101,6 +433,76 @@ class TaskControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void testSearchTasks() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        when(taskService.searchTasks(eq("dishes"), eq(5))).thenReturn(Collections.singletonList(task));
+
+        mockMvc.perform(get("/tasks/search")
+                        .param("q", "dishes")
+                        .param("limit", "5")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    void testGetTaskStats() throws Exception {
+        TaskStats stats = new TaskStats();
+        stats.setTodo(2L);
+        stats.setInProgress(1L);
+        stats.setDone(3L);
+        stats.setTotal(6L);
+        when(taskService.getTaskStats()).thenReturn(stats);
+
+        mockMvc.perform(get("/tasks/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.in_progress").value(1))
+                .andExpect(jsonPath("$.total").value(6));
+    }
+
+    @Test
+    void testGetTaskById_ETag() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        task.setUpdatedAt(OffsetDateTime.parse("2025-03-06T12:00:00Z"));
+        when(taskService.getTaskById(anyLong())).thenReturn(task);
+        String eTag = TaskETags.forTask(task);
+
+        mockMvc.perform(get("/tasks/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", eTag));
+
+        when(taskService.getTaskETag(1L)).thenReturn(eTag);
+        mockMvc.perform(get("/tasks/1")
+                        .header("If-None-Match", eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        verify(taskService, times(1)).getTaskById(anyLong());
+    }
+
+    @Test
+    void testGetTaskById_ChangedSinceETag() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        task.setVersion(2L);
+        when(taskService.getTaskETag(1L)).thenReturn(TaskETags.forTask(task));
+        when(taskService.getTaskById(anyLong())).thenReturn(task);
+
+        mockMvc.perform(get("/tasks/1")
+                        .header("If-None-Match", "\"1-v1\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-v2\""))
+                .andExpect(jsonPath("$.id").value(1L));
+    }
+
     @Test
     void testGetTaskById_NotFound() throws Exception {
         when(taskService.getTaskById(anyLong())).thenReturn(null);
@@ -0,0 +1,155 @@
+package com.gutu.tasksmanager.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.service.impl.CachingTaskService;
+import com.gutu.tasksmanager.service.impl.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CachingTaskServiceTest {
+
+    @Mock
+    private TaskService taskService;
+
+    private Cache<Long, TaskWithDetails> taskCache;
+
+    private CachingTaskService cachingTaskService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        taskCache = Caffeine.newBuilder().maximumSize(100).recordStats().build();
+        cachingTaskService = new CachingTaskService(taskService, taskCache);
+    }
+
+    @Test
+    void testGetTaskById_ServedFromCache() {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        when(taskService.loadTaskById(1L)).thenReturn(task);
+
+        assertSame(task, cachingTaskService.getTaskById(1L));
+        assertSame(task, cachingTaskService.getTaskById(1L));
+
+        verify(taskService, times(1)).loadTaskById(1L);
+        assertEquals(1, taskCache.stats().hitCount());
+        assertEquals(1, taskCache.stats().missCount());
+    }
+
+    @Test
+    void testGetTaskETag_ServedFromCache() {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        task.setVersion(3L);
+        when(taskService.loadTaskById(1L)).thenReturn(task);
+        when(taskService.getTaskETag(2L)).thenReturn("\"2-v0\"");
+
+        cachingTaskService.getTaskById(1L);
+
+        assertEquals("\"1-v3\"", cachingTaskService.getTaskETag(1L));
+        assertEquals("\"2-v0\"", cachingTaskService.getTaskETag(2L));
+        verify(taskService, never()).getTaskETag(1L);
+    }
+
+    @Test
+    void testGetTaskById_MissIsLoadedFromPrimary() throws NoSuchMethodException {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        when(taskService.loadTaskById(1L)).thenReturn(task);
+
+        cachingTaskService.getTaskById(1L);
+
+        verify(taskService).loadTaskById(1L);
+        verify(taskService, never()).getTaskById(any());
+        // A read-write transaction is routed to the primary, never to a read replica
+        Transactional transactional = TaskService.class.getMethod("loadTaskById", Long.class)
+                .getAnnotation(Transactional.class);
+        assertNotNull(transactional);
+        assertFalse(transactional.readOnly());
+    }
+
+    @Test
+    void testGetTaskById_NotFoundIsNotCached() {
+        when(taskService.loadTaskById(1L)).thenReturn(null);
+
+        assertNull(cachingTaskService.getTaskById(1L));
+        assertNull(cachingTaskService.getTaskById(1L));
+
+        verify(taskService, times(2)).loadTaskById(1L);
+    }
+
+    @Test
+    void testUpdateTask_InvalidatesCache() {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        when(taskService.loadTaskById(1L)).thenReturn(task);
+        when(taskService.updateTask(eq(1L), any(CreateUpdateTaskRequest.class))).thenReturn(task);
+
+        cachingTaskService.getTaskById(1L);
+        cachingTaskService.updateTask(1L, new CreateUpdateTaskRequest());
+        cachingTaskService.getTaskById(1L);
+
+        verify(taskService, times(2)).loadTaskById(1L);
+    }
+
+    @Test
+    void testDeleteTask_InvalidatesCache() {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        when(taskService.loadTaskById(1L)).thenReturn(task);
+        when(taskService.deleteTask(1L)).thenReturn(true);
+
+        cachingTaskService.getTaskById(1L);
+        assertTrue(cachingTaskService.deleteTask(1L));
+
+        assertNull(taskCache.getIfPresent(1L));
+    }
+
+    @Test
+    void testGetTaskById_ConcurrentMissesLoadOnce() throws Exception {
+        TaskWithDetails task = new TaskWithDetails();
+        task.setId(1L);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskService.loadTaskById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return task;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TaskWithDetails>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cachingTaskService.getTaskById(1L)));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            release.countDown();
+            for (Future<TaskWithDetails> result : results) {
+                assertSame(task, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(taskService, times(1)).loadTaskById(1L);
+    }
+}
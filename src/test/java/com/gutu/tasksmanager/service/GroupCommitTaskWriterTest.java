@@ -0,0 +1,164 @@
+package com.gutu.tasksmanager.service;
+
+import com.gutu.tasksmanager.exception.ServiceUnavailableException;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.service.impl.GroupCommitTaskWriter;
+import com.gutu.tasksmanager.service.impl.TaskService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class GroupCommitTaskWriterTest {
+
+    @Mock
+    private TaskService taskService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(taskService.createTasks(anyList())).thenAnswer(invocation -> {
+            List<CreateUpdateTaskRequest> requests = invocation.getArgument(0);
+            return requests.stream().map(GroupCommitTaskWriterTest::created).toList();
+        });
+        when(taskService.createTask(any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void testCreateTask_ConcurrentRequestsShareOneTransaction() throws Exception {
+        var writer = new GroupCommitTaskWriter(taskService, meterRegistry, 3, Duration.ofSeconds(5), 10,
+                Duration.ofSeconds(5));
+
+        List<CompletableFuture<TaskWithDetails>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            var request = request("Task " + i);
+            results.add(CompletableFuture.supplyAsync(() -> writer.createTask(request), callers));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Task " + i, results.get(i).get(5, TimeUnit.SECONDS).getTitle());
+        }
+        verify(taskService, times(1)).createTasks(anyList());
+        assertEquals(3.0, meterRegistry.get("tasks.group.commit.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void testCreateTask_FlushWindowEndsGroup() {
+        var writer = new GroupCommitTaskWriter(taskService, meterRegistry, 100, Duration.ofMillis(1), 10,
+                Duration.ofSeconds(5));
+
+        assertEquals("First", writer.createTask(request("First")).getTitle());
+        assertEquals("Second", writer.createTask(request("Second")).getTitle());
+
+        verify(taskService, times(2)).createTasks(anyList());
+    }
+
+    @Test
+    void testCreateTask_FailedGroupReportsOwnErrors() throws Exception {
+        doThrow(new IllegalStateException("batch failed")).when(taskService).createTasks(anyList());
+        doThrow(new IllegalStateException("bad task"))
+                .when(taskService).createTask(argThat(request -> request != null && "Bad".equals(request.getTitle())));
+        var writer = new GroupCommitTaskWriter(taskService, meterRegistry, 2, Duration.ofSeconds(5), 10,
+                Duration.ofSeconds(5));
+
+        var good = CompletableFuture.supplyAsync(() -> writer.createTask(request("Good")), callers);
+        var bad = CompletableFuture.supplyAsync(() -> writer.createTask(request("Bad")), callers);
+
+        assertEquals("Good", good.get(5, TimeUnit.SECONDS).getTitle());
+        var error = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertEquals("bad task", error.getCause().getMessage());
+    }
+
+    @Test
+    void testCreateTask_FullQueueIsRejected() throws Exception {
+        var writing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            List<CreateUpdateTaskRequest> requests = invocation.getArgument(0);
+            return requests.stream().map(GroupCommitTaskWriterTest::created).toList();
+        }).when(taskService).createTasks(anyList());
+        var writer = new GroupCommitTaskWriter(taskService, meterRegistry, 1, Duration.ZERO, 1,
+                Duration.ofSeconds(5));
+
+        var inTransaction = CompletableFuture.supplyAsync(() -> writer.createTask(request("First")), callers);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        var queued = CompletableFuture.supplyAsync(() -> writer.createTask(request("Second")), callers);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getQueueDepth() == 0) {
+            assertTrue(System.nanoTime() < deadline, "Request was not queued in time");
+            Thread.onSpinWait();
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> writer.createTask(request("Third")));
+        assertEquals(1.0, meterRegistry.get("tasks.group.commit.queue.depth").gauge().value());
+
+        release.countDown();
+        assertEquals("First", inTransaction.get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals("Second", queued.get(5, TimeUnit.SECONDS).getTitle());
+    }
+
+    @Test
+    void testCreateTask_SlowGroupTimesOut() throws Exception {
+        var writing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            List<CreateUpdateTaskRequest> requests = invocation.getArgument(0);
+            return requests.stream().map(GroupCommitTaskWriterTest::created).toList();
+        }).when(taskService).createTasks(anyList());
+        var writer = new GroupCommitTaskWriter(taskService, meterRegistry, 1, Duration.ZERO, 10, Duration.ofMillis(100));
+
+        var stuck = CompletableFuture.supplyAsync(() -> writer.createTask(request("First")), callers);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceUnavailableException.class, () -> writer.createTask(request("Second")));
+        assertEquals(0, writer.getQueueDepth());
+        var error = assertThrows(ExecutionException.class, () -> stuck.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceUnavailableException.class, error.getCause());
+
+        release.countDown();
+        verify(taskService, times(1)).createTasks(anyList());
+    }
+
+    private static CreateUpdateTaskRequest request(String title) {
+        var request = new CreateUpdateTaskRequest();
+        request.setTitle(title);
+        return request;
+    }
+
+    private static TaskWithDetails created(CreateUpdateTaskRequest request) {
+        var task = new TaskWithDetails();
+        task.setTitle(request.getTitle());
+        return task;
+    }
+}
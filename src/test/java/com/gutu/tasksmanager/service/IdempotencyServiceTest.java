@@ -0,0 +1,178 @@
+package com.gutu.tasksmanager.service;
+
+import com.gutu.tasksmanager.exception.ConflictException;
+import com.gutu.tasksmanager.exception.ValidationException;
+import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.PatchTaskRequest;
+import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskWithDetails;
+import com.gutu.tasksmanager.repository.TaskRepository;
+import com.gutu.tasksmanager.service.impl.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ITaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+    }
+
+    @Test
+    void testExecute_RepeatedKeyReturnsOriginalResponse() {
+        var request = request("Test Task");
+        var writes = new AtomicInteger();
+
+        TaskWithDetails first = idempotencyService.execute("key-1", "POST /tasks", request, TaskWithDetails.class,
+                () -> {
+                    writes.incrementAndGet();
+                    return taskService.createTask(request);
+                });
+        TaskWithDetails second = idempotencyService.execute("key-1", "POST /tasks", request, TaskWithDetails.class,
+                () -> {
+                    writes.incrementAndGet();
+                    return taskService.createTask(request);
+                });
+
+        assertEquals(1, writes.get());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(first.getVersion(), second.getVersion());
+        assertEquals(1, taskRepository.count());
+    }
+
+    @Test
+    void testExecute_KeyOfOtherRequestIsRejected() {
+        idempotencyService.execute("key-1", "POST /tasks", request("First"), TaskWithDetails.class,
+                () -> taskService.createTask(request("First")));
+
+        assertThrows(ValidationException.class, () -> idempotencyService.execute("key-1", "POST /tasks",
+                request("Second"), TaskWithDetails.class, () -> taskService.createTask(request("Second"))));
+        assertEquals(1, taskRepository.count());
+    }
+
+    @Test
+    void testExecute_KeyOfOtherPreconditionIsRejected() {
+        Long id = taskService.createTask(request("Test Task")).getId();
+        var patch = new PatchTaskRequest();
+        patch.setStatus("DONE");
+        idempotencyService.execute("key-1", "PATCH /tasks/" + id, "\"v0\"", patch, TaskWithDetails.class,
+                () -> taskService.patchTask(id, patch, null));
+
+        assertThrows(ValidationException.class, () -> idempotencyService.execute("key-1", "PATCH /tasks/" + id,
+                "\"v1\"", patch, TaskWithDetails.class, () -> taskService.patchTask(id, patch, null)));
+        assertThrows(ValidationException.class, () -> idempotencyService.execute("key-1", "PATCH /tasks/" + id,
+                patch, TaskWithDetails.class, () -> taskService.patchTask(id, patch, null)));
+    }
+
+    @Test
+    void testExecute_FailedWriteReleasesKey() {
+        var request = request("Test Task");
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("key-1", "POST /tasks", request,
+                TaskWithDetails.class, () -> {
+                    taskService.createTask(request);
+                    throw new IllegalStateException("write failed");
+                }));
+        TaskWithDetails retried = idempotencyService.execute("key-1", "POST /tasks", request, TaskWithDetails.class,
+                () -> taskService.createTask(request));
+
+        assertNotNull(retried.getId());
+        assertEquals(1, taskRepository.count());
+    }
+
+    @Test
+    void testExecute_ConcurrentRequestsWriteOnce() throws Exception {
+        var request = request("Test Task");
+        var start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TaskWithDetails>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute("key-1", "POST /tasks", request, TaskWithDetails.class,
+                            () -> taskService.createTask(request));
+                }));
+            }
+            start.countDown();
+
+            Long id = null;
+            for (Future<TaskWithDetails> result : results) {
+                try {
+                    Long resultId = result.get(30, TimeUnit.SECONDS).getId();
+                    assertTrue(id == null || id.equals(resultId));
+                    id = resultId;
+                } catch (ExecutionException e) {
+                    // A request that gave up waiting for the first one is told to retry
+                    assertInstanceOf(ConflictException.class, e.getCause());
+                }
+            }
+            assertNotNull(id);
+            assertEquals(1, taskRepository.count());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testExecute_CachedReadAfterKeyedPatchSeesNewState() throws Exception {
+        Long id = taskService.createTask(request("Test Task")).getId();
+        taskService.getTaskById(id);
+        var patch = new PatchTaskRequest();
+        patch.setStatus("DONE");
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            idempotencyService.execute("key-1", "PATCH /tasks/" + id, patch, TaskWithDetails.class, () -> {
+                TaskWithDetails patched = taskService.patchTask(id, patch, null);
+                // A read before the commit still sees the previous state and caches it again
+                assertEquals(SimpleTask.StatusEnum.TODO,
+                        assertDoesNotThrow(() -> reader.submit(() -> taskService.getTaskById(id))
+                                .get(5, TimeUnit.SECONDS)).getStatus());
+                return patched;
+            });
+        } finally {
+            reader.shutdownNow();
+        }
+
+        assertEquals(SimpleTask.StatusEnum.DONE, taskService.getTaskById(id).getStatus());
+    }
+
+    private static CreateUpdateTaskRequest request(String title) {
+        var request = new CreateUpdateTaskRequest();
+        request.setTitle(title);
+        request.setDescription("Test Description");
+        request.setStatus(SimpleTask.StatusEnum.TODO);
+        return request;
+    }
+}
@@ -1,23 +1,41 @@
 package com.gutu.tasksmanager.service;
 
 import com.gutu.tasksmanager.entity.TaskEntity;
+import com.gutu.tasksmanager.exception.GoneException;
+import com.gutu.tasksmanager.exception.PreconditionFailedException;
+import com.gutu.tasksmanager.exception.ValidationException;
 import com.gutu.tasksmanager.models.model.CreateUpdateTaskRequest;
+import com.gutu.tasksmanager.models.model.PatchTaskRequest;
 import com.gutu.tasksmanager.models.model.SimpleTask;
+import com.gutu.tasksmanager.models.model.TaskChanges;
+import com.gutu.tasksmanager.models.model.TaskEvent;
+import com.gutu.tasksmanager.models.model.TaskPage;
+import com.gutu.tasksmanager.models.model.TaskStats;
 import com.gutu.tasksmanager.models.model.TaskWithDetails;
 import com.gutu.tasksmanager.repository.TaskRepository;
+import com.gutu.tasksmanager.repository.specification.TaskFilter;
+import com.gutu.tasksmanager.repository.specification.TaskSort;
 import com.gutu.tasksmanager.service.impl.TaskService;
+import com.gutu.tasksmanager.utils.TaskCursor;
+import com.gutu.tasksmanager.utils.TaskETags;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @ActiveProfiles("test")
+@RecordApplicationEvents
 class TaskServiceTest {
 
     @Autowired
@@ -26,6 +44,9 @@ class TaskServiceTest {
     @Autowired
     private TaskService taskService;
 
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
     @BeforeEach
     void setUp() {
         taskRepository.deleteAll();
@@ -44,13 +65,32 @@ class TaskServiceTest {
         assertEquals("Test Task", result.getTitle());
     }
 
+    @Test
+    void testCreateTasks() {
+        List<CreateUpdateTaskRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            CreateUpdateTaskRequest request = new CreateUpdateTaskRequest();
+            request.setTitle("Test Task " + i);
+            request.setDescription("Test Description");
+            request.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
+            requests.add(request);
+        }
+
+        List<TaskWithDetails> result = taskService.createTasks(requests);
+
+        assertEquals(120, result.size());
+        assertEquals("Test Task 119", result.get(119).getTitle());
+        assertEquals(120, result.stream().map(TaskWithDetails::getId).distinct().count());
+        assertEquals(120, taskRepository.count());
+    }
+
     @Test
     void testGetAllTasks() {
         TaskEntity taskEntity = new TaskEntity();
         taskEntity.setTitle("Test Task");
         taskEntity.setDescription("Test Description");
         taskEntity.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
-        taskRepository.save(taskEntity);
+        taskRepository.save(stamped(taskEntity));
 
         List<TaskWithDetails> result = taskService.getAllTasks();
 
@@ -67,13 +107,212 @@ class TaskServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void testGetTasksPage() {
+        for (int i = 0; i < 3; i++) {
+            TaskEntity taskEntity = new TaskEntity();
+            taskEntity.setTitle("Test Task " + i);
+            taskEntity.setDescription("Test Description");
+            taskEntity.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
+            taskRepository.save(stamped(taskEntity));
+        }
+
+        TaskPage firstPage = taskService.getTasksPage(TaskFilter.unfiltered(), null, 2);
+
+        assertEquals(2, firstPage.getItems().size());
+        assertEquals("Test Task 0", firstPage.getItems().get(0).getTitle());
+        assertNotNull(firstPage.getNext());
+
+        TaskPage lastPage = taskService.getTasksPage(TaskFilter.unfiltered(), firstPage.getNext(), 2);
+
+        assertEquals(1, lastPage.getItems().size());
+        assertEquals("Test Task 2", lastPage.getItems().get(0).getTitle());
+        assertNull(lastPage.getNext());
+    }
+
+    @Test
+    void testGetTasksPage_InvalidCursor() {
+        assertThrows(ValidationException.class, () -> taskService.getTasksPage(TaskFilter.unfiltered(), "not-a-cursor", 2));
+    }
+
+    @Test
+    void testGetTasksPage_FilteredAndSorted() {
+        for (int i = 0; i < 4; i++) {
+            TaskEntity taskEntity = new TaskEntity();
+            taskEntity.setTitle("Test Task " + i);
+            taskEntity.setDescription("Test Description");
+            taskEntity.setStatus(i % 2 == 0 ? SimpleTask.StatusEnum.TODO : SimpleTask.StatusEnum.DONE);
+            taskRepository.save(stamped(taskEntity));
+        }
+        TaskFilter filter = new TaskFilter(SimpleTask.StatusEnum.TODO, null, null, null, null,
+                TaskSort.fromParameter("-updated_at"));
+
+        TaskPage firstPage = taskService.getTasksPage(filter, null, 1);
+
+        assertEquals(1, firstPage.getItems().size());
+        assertEquals("Test Task 2", firstPage.getItems().get(0).getTitle());
+        assertNotNull(firstPage.getNext());
+
+        TaskPage lastPage = taskService.getTasksPage(filter, firstPage.getNext(), 1);
+
+        assertEquals(1, lastPage.getItems().size());
+        assertEquals("Test Task 0", lastPage.getItems().get(0).getTitle());
+        assertNull(lastPage.getNext());
+    }
+
+    @Test
+    void testGetTasksPage_ActiveOnly() {
+        for (SimpleTask.StatusEnum status : SimpleTask.StatusEnum.values()) {
+            TaskEntity taskEntity = new TaskEntity();
+            taskEntity.setTitle(status.name());
+            taskEntity.setDescription("Test Description");
+            taskEntity.setStatus(status);
+            taskRepository.save(stamped(taskEntity));
+        }
+        TaskFilter filter = new TaskFilter(null, true, null, null, null, null, TaskSort.ID_ASC);
+
+        TaskPage page = taskService.getTasksPage(filter, null, 10);
+
+        assertEquals(List.of("TODO", "IN_PROGRESS"), page.getItems().stream().map(TaskWithDetails::getTitle).toList());
+    }
+
+    @Test
+    void testGetTasksPage_CursorOfAnotherSort() {
+        for (int i = 0; i < 2; i++) {
+            TaskEntity taskEntity = new TaskEntity();
+            taskEntity.setTitle("Test Task " + i);
+            taskEntity.setDescription("Test Description");
+            taskEntity.setStatus(SimpleTask.StatusEnum.TODO);
+            taskRepository.save(stamped(taskEntity));
+        }
+        String cursor = taskService.getTasksPage(TaskFilter.unfiltered(), null, 1).getNext();
+        TaskFilter filter = new TaskFilter(null, null, null, null, null, TaskSort.CREATED_AT_DESC);
+
+        assertThrows(ValidationException.class, () -> taskService.getTasksPage(filter, cursor, 1));
+    }
+
+    @Test
+    void testSearchTasks() {
+        for (String title : List.of("Wash the dishes", "Buy milk", "Dry the dishes")) {
+            TaskEntity taskEntity = new TaskEntity();
+            taskEntity.setTitle(title);
+            taskEntity.setDescription("Kitchen chores");
+            taskEntity.setStatus(SimpleTask.StatusEnum.TODO);
+            taskRepository.save(stamped(taskEntity));
+        }
+
+        List<TaskWithDetails> result = taskService.searchTasks("DISHES", null);
+
+        assertEquals(List.of("Wash the dishes", "Dry the dishes"),
+                result.stream().map(TaskWithDetails::getTitle).toList());
+        assertEquals(3, taskService.searchTasks("kitchen", null).size());
+        assertEquals(1, taskService.searchTasks("kitchen", 1).size());
+        assertTrue(taskService.searchTasks("dishes milk", null).isEmpty());
+        assertTrue(taskService.searchTasks("100%", null).isEmpty());
+    }
+
+    @Test
+    void testExportTasks() {
+        for (int i = 0; i < 3; i++) {
+            TaskEntity taskEntity = new TaskEntity();
+            taskEntity.setTitle("Test Task " + i);
+            taskEntity.setDescription("Test Description");
+            taskEntity.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
+            taskRepository.save(stamped(taskEntity));
+        }
+
+        List<TaskWithDetails> exported = new ArrayList<>();
+        taskService.exportTasks(exported::add);
+
+        assertEquals(3, exported.size());
+        assertEquals("Test Task 0", exported.get(0).getTitle());
+        assertEquals("Test Task 2", exported.get(2).getTitle());
+    }
+
+    @Test
+    void testGetChanges() {
+        List<TaskWithDetails> created = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CreateUpdateTaskRequest request = new CreateUpdateTaskRequest();
+            request.setTitle("Test Task " + i);
+            request.setDescription("Test Description");
+            request.setStatus(SimpleTask.StatusEnum.TODO);
+            created.add(taskService.createTask(request));
+        }
+
+        // Read the whole feed, which also holds the tombstones left by other tests
+        List<TaskWithDetails> items = new ArrayList<>();
+        String cursor = null;
+        TaskChanges changes;
+        do {
+            changes = taskService.getChanges(cursor, 2);
+            items.addAll(changes.getItems());
+            cursor = changes.getCursor();
+        } while (changes.isHasMore());
+        assertEquals(created.stream().map(TaskWithDetails::getId).toList(),
+                items.stream().map(TaskWithDetails::getId).toList());
+
+        TaskChanges unchanged = taskService.getChanges(cursor, null);
+        assertTrue(unchanged.getItems().isEmpty());
+        assertTrue(unchanged.getDeleted().isEmpty());
+        assertEquals(cursor, unchanged.getCursor());
+
+        PatchTaskRequest patch = new PatchTaskRequest();
+        patch.setStatus("DONE");
+        taskService.patchTask(created.get(0).getId(), patch, null);
+        taskService.deleteTask(created.get(1).getId());
+
+        TaskChanges delta = taskService.getChanges(cursor, null);
+        assertEquals(1, delta.getItems().size());
+        assertEquals(created.get(0).getId(), delta.getItems().get(0).getId());
+        assertEquals(SimpleTask.StatusEnum.DONE, delta.getItems().get(0).getStatus());
+        assertEquals(List.of(created.get(1).getId()), delta.getDeleted());
+        assertFalse(delta.isHasMore());
+        assertNotEquals(cursor, delta.getCursor());
+    }
+
+    @Test
+    void testGetChanges_CursorOfAListing() {
+        for (int i = 0; i < 2; i++) {
+            TaskEntity taskEntity = new TaskEntity();
+            taskEntity.setTitle("Test Task " + i);
+            taskEntity.setDescription("Test Description");
+            taskEntity.setStatus(SimpleTask.StatusEnum.TODO);
+            taskRepository.save(stamped(taskEntity));
+        }
+        String cursor = taskService.getTasksPage(new TaskFilter(null, null, null, null, null, TaskSort.UPDATED_AT_ASC),
+                null, 1).getNext();
+
+        assertThrows(ValidationException.class, () -> taskService.getChanges(cursor, null));
+    }
+
+    @Test
+    void testGetChanges_ExpiredCursor() {
+        String cursor = TaskCursor.encodeChange(1L, OffsetDateTime.now().minusDays(31));
+
+        assertThrows(GoneException.class, () -> taskService.getChanges(cursor, null));
+    }
+
+    @Test
+    @Transactional
+    void testDeleteTombstonesBefore() {
+        CreateUpdateTaskRequest request = new CreateUpdateTaskRequest();
+        request.setTitle("Test Task");
+        request.setDescription("Test Description");
+        request.setStatus(SimpleTask.StatusEnum.TODO);
+        taskService.deleteTask(taskService.createTask(request).getId());
+
+        assertEquals(0, taskRepository.deleteTombstonesBefore(OffsetDateTime.now().minusDays(30)));
+        assertTrue(taskRepository.deleteTombstonesBefore(OffsetDateTime.now().plusSeconds(1)) > 0);
+    }
+
     @Test
     void testGetTaskById() {
         TaskEntity taskEntity = new TaskEntity();
         taskEntity.setTitle("Test Task");
         taskEntity.setDescription("Test Description");
         taskEntity.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
-        taskEntity = taskRepository.save(taskEntity);
+        taskEntity = taskRepository.save(stamped(taskEntity));
 
         TaskWithDetails result = taskService.getTaskById(taskEntity.getId());
 
@@ -81,6 +320,19 @@ class TaskServiceTest {
         assertEquals("Test Task", result.getTitle());
     }
 
+    @Test
+    void testGetTaskETag_ReadsVersion() {
+        TaskEntity taskEntity = new TaskEntity();
+        taskEntity.setTitle("Test Task");
+        taskEntity.setDescription("Test Description");
+        taskEntity.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
+        taskEntity = taskRepository.save(stamped(taskEntity));
+
+        assertEquals(TaskETags.forTask(taskService.getTaskById(taskEntity.getId())),
+                taskService.getTaskETag(taskEntity.getId()));
+        assertNull(taskService.getTaskETag(999L));
+    }
+
     @Test
     void testGetTaskById_NotFound() {
         TaskWithDetails result = taskService.getTaskById(999L);
@@ -94,7 +346,7 @@ class TaskServiceTest {
         taskEntity.setTitle("Test Task");
         taskEntity.setDescription("Test Description");
         taskEntity.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
-        taskEntity = taskRepository.save(taskEntity);
+        taskEntity = taskRepository.save(stamped(taskEntity));
 
         CreateUpdateTaskRequest request = new CreateUpdateTaskRequest();
         request.setTitle("Updated Task");
@@ -105,6 +357,31 @@ class TaskServiceTest {
 
         assertNotNull(result);
         assertEquals("Updated Task", result.getTitle());
+        assertEquals(SimpleTask.StatusEnum.IN_PROGRESS, result.getStatus());
+        assertNotNull(result.getCreatedAt());
+        assertNotNull(result.getUpdatedAt());
+        assertEquals("Updated Description", taskRepository.findById(taskEntity.getId()).orElseThrow().getDescription());
+    }
+
+    @Test
+    void testUpdateTask_ExpectedVersion() {
+        TaskEntity taskEntity = new TaskEntity();
+        taskEntity.setTitle("Test Task");
+        taskEntity.setDescription("Test Description");
+        taskEntity.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
+        taskEntity = taskRepository.save(stamped(taskEntity));
+        Long id = taskEntity.getId();
+
+        CreateUpdateTaskRequest request = new CreateUpdateTaskRequest();
+        request.setTitle("Updated Task");
+        request.setDescription("Updated Description");
+        request.setStatus(SimpleTask.StatusEnum.valueOf("IN_PROGRESS"));
+
+        TaskWithDetails result = taskService.updateTask(id, request, 0L);
+
+        assertEquals(1L, result.getVersion());
+        assertThrows(PreconditionFailedException.class, () -> taskService.updateTask(id, request, 0L));
+        assertNull(taskService.updateTask(999L, request, 0L));
     }
 
     @Test
@@ -119,13 +396,106 @@ class TaskServiceTest {
         assertNull(result);
     }
 
+    @Test
+    void testPatchTask() {
+        TaskEntity taskEntity = new TaskEntity();
+        taskEntity.setTitle("Test Task");
+        taskEntity.setDescription("Test Description");
+        taskEntity.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
+        taskEntity = taskRepository.save(stamped(taskEntity));
+
+        PatchTaskRequest request = new PatchTaskRequest();
+        request.setStatus("DONE");
+
+        TaskWithDetails result = taskService.patchTask(taskEntity.getId(), request, null);
+
+        assertNotNull(result);
+        assertEquals("Test Task", result.getTitle());
+        assertEquals("Test Description", result.getDescription());
+        assertEquals(SimpleTask.StatusEnum.DONE, result.getStatus());
+        assertEquals(1L, result.getVersion());
+    }
+
+    @Test
+    void testPatchTask_NotFound() {
+        PatchTaskRequest request = new PatchTaskRequest();
+        request.setStatus("DONE");
+
+        assertNull(taskService.patchTask(999L, request, null));
+    }
+
+    @Test
+    void testUpdateStatus() {
+        List<Long> ids = new ArrayList<>();
+        for (String status : List.of("TODO", "IN_PROGRESS", "DONE")) {
+            TaskEntity taskEntity = new TaskEntity();
+            taskEntity.setTitle("Test Task");
+            taskEntity.setDescription("Test Description");
+            taskEntity.setStatus(SimpleTask.StatusEnum.valueOf(status));
+            ids.add(taskRepository.save(stamped(taskEntity)).getId());
+        }
+        ids.add(999L);
+
+        int updated = taskService.updateStatus(ids, SimpleTask.StatusEnum.DONE);
+
+        assertEquals(2, updated);
+        assertTrue(taskRepository.findAll().stream().allMatch(task -> task.getStatus() == SimpleTask.StatusEnum.DONE));
+    }
+
+    @Test
+    void testGetTaskStats_FollowsWrites() {
+        TaskStats before = taskService.getTaskStats();
+        CreateUpdateTaskRequest request = new CreateUpdateTaskRequest();
+        request.setTitle("Test Task");
+        request.setDescription("Test Description");
+        request.setStatus(SimpleTask.StatusEnum.TODO);
+
+        TaskWithDetails first = taskService.createTask(request);
+        TaskWithDetails second = taskService.createTasks(List.of(request, request)).get(0);
+        request.setStatus(SimpleTask.StatusEnum.IN_PROGRESS);
+        taskService.updateTask(first.getId(), request);
+        taskService.updateStatus(List.of(first.getId(), second.getId()), SimpleTask.StatusEnum.DONE);
+        taskService.deleteTask(first.getId());
+
+        TaskStats after = taskService.getTaskStats();
+        assertEquals(before.getTodo() + 1, after.getTodo());
+        assertEquals(before.getInProgress(), after.getInProgress());
+        assertEquals(before.getDone() + 1, after.getDone());
+        assertEquals(before.getTotal() + 2, after.getTotal());
+    }
+
+    @Test
+    void testGetTaskStats_FollowsStatusOfUpdates() {
+        CreateUpdateTaskRequest request = new CreateUpdateTaskRequest();
+        request.setTitle("Test Task");
+        request.setDescription("Test Description");
+        request.setStatus(SimpleTask.StatusEnum.TODO);
+        TaskWithDetails task = taskService.createTask(request);
+        TaskStats before = taskService.getTaskStats();
+
+        PatchTaskRequest sameStatus = new PatchTaskRequest();
+        sameStatus.setStatus("TODO");
+        taskService.patchTask(task.getId(), sameStatus, null);
+        PatchTaskRequest newStatus = new PatchTaskRequest();
+        newStatus.setStatus("DONE");
+        assertThrows(PreconditionFailedException.class, () -> taskService.patchTask(task.getId(), newStatus, 0L));
+        TaskWithDetails done = taskService.patchTask(task.getId(), newStatus, 1L);
+
+        TaskStats after = taskService.getTaskStats();
+        assertEquals(SimpleTask.StatusEnum.DONE, done.getStatus());
+        assertEquals(2L, done.getVersion());
+        assertEquals(before.getTodo() - 1, after.getTodo());
+        assertEquals(before.getDone() + 1, after.getDone());
+        assertEquals(before.getTotal(), after.getTotal());
+    }
+
     @Test
     void testDeleteTask() {
         TaskEntity taskEntity = new TaskEntity();
         taskEntity.setTitle("Test Task");
         taskEntity.setDescription("Test Description");
         taskEntity.setStatus(SimpleTask.StatusEnum.valueOf("TODO"));
-        taskEntity = taskRepository.save(taskEntity);
+        taskEntity = taskRepository.save(stamped(taskEntity));
 
         boolean result = taskService.deleteTask(taskEntity.getId());
 
@@ -133,10 +503,36 @@ class TaskServiceTest {
         assertFalse(taskRepository.existsById(taskEntity.getId()));
     }
 
+    @Test
+    void testWrites_PublishTaskEvents() {
+        CreateUpdateTaskRequest request = new CreateUpdateTaskRequest();
+        request.setTitle("Test Task");
+        request.setDescription("Test Description");
+        request.setStatus(SimpleTask.StatusEnum.TODO);
+        TaskWithDetails task = taskService.createTask(request);
+        taskService.updateStatus(List.of(task.getId()), SimpleTask.StatusEnum.DONE);
+        assertThrows(PreconditionFailedException.class, () -> taskService.updateTask(task.getId(), request, 0L));
+        taskService.deleteTask(task.getId());
+
+        List<TaskEvent> events = applicationEvents.stream(TaskEvent.class).toList();
+        assertEquals(List.of(TaskEvent.TypeEnum.CREATED, TaskEvent.TypeEnum.UPDATED, TaskEvent.TypeEnum.DELETED),
+                events.stream().map(TaskEvent::getType).toList());
+        assertEquals(SimpleTask.StatusEnum.DONE, events.get(1).getTask().getStatus());
+        assertEquals(1L, events.get(1).getTask().getVersion());
+        assertNull(events.get(2).getTask());
+    }
+
     @Test
     void testDeleteTask_NotFound() {
         boolean result = taskService.deleteTask(999L);
 
         assertFalse(result);
     }
-}
\ No newline at end of file
+
+    private TaskEntity stamped(TaskEntity task) {
+        OffsetDateTime now = OffsetDateTime.now();
+        task.setCreatedAt(now);
+        task.setUpdatedAt(now);
+        return task;
+    }
+}
@@ -0,0 +1,176 @@
+package com.gutu.tasksmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gutu.tasksmanager.models.model.TaskEvent;
+import com.gutu.tasksmanager.service.impl.TaskStreamService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskStreamServiceTest {
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private final TaskStreamService taskStreamService = new TaskStreamService(
+            new ObjectMapper().registerModule(new JavaTimeModule()), 8, 4, Duration.ofMinutes(1), Duration.ofMillis(500)) {
+        @Override
+        protected SseEmitter createEmitter() {
+            var emitter = new RecordingEmitter();
+            emitters.add(emitter);
+            return emitter;
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(emitter -> emitter.gate.countDown());
+    }
+
+    @Test
+    void testSubscribe_ReceivesEventsInOrder() {
+        RecordingEmitter emitter = subscribe(null);
+
+        publish(TaskEvent.TypeEnum.CREATED, 1L);
+        publish(TaskEvent.TypeEnum.DELETED, 1L);
+
+        await(() -> emitter.events().size() == 2);
+        assertTrue(emitter.events().get(0).contains("\"type\":\"CREATED\""));
+        assertTrue(emitter.events().get(1).contains("\"type\":\"DELETED\""));
+        assertNotEquals(eventId(emitter.events().get(0)), eventId(emitter.events().get(1)));
+    }
+
+    @Test
+    void testSubscribe_ResumesFromLastEventId() {
+        RecordingEmitter first = subscribe(null);
+        publish(TaskEvent.TypeEnum.CREATED, 1L);
+        await(() -> first.events().size() == 1);
+        String lastEventId = eventId(first.events().get(0));
+
+        publish(TaskEvent.TypeEnum.CREATED, 2L);
+        publish(TaskEvent.TypeEnum.CREATED, 3L);
+        RecordingEmitter resumed = subscribe(lastEventId);
+
+        await(() -> resumed.events().size() == 2);
+        assertTrue(resumed.events().get(0).contains("\"id\":2"));
+        assertTrue(resumed.events().get(1).contains("\"id\":3"));
+    }
+
+    @Test
+    void testSubscribe_UnknownLastEventIdStartsWithReset() {
+        RecordingEmitter emitter = subscribe("0-41");
+        publish(TaskEvent.TypeEnum.CREATED, 1L);
+
+        await(() -> emitter.events().size() == 2);
+        assertTrue(emitter.events().get(0).startsWith("event:reset"));
+        assertTrue(emitter.events().get(1).contains("\"id\":1"));
+    }
+
+    @Test
+    void testOnTaskEvent_DropsSlowSubscriber() {
+        RecordingEmitter slow = subscribe(null);
+        slow.gate = new CountDownLatch(1);
+
+        for (long id = 1; id <= 5; id++) {
+            publish(TaskEvent.TypeEnum.CREATED, id);
+        }
+        assertEquals(0, taskStreamService.getSubscriberCount());
+
+        slow.gate.countDown();
+        await(() -> slow.completed);
+    }
+
+    @Test
+    void testSend_DropsStalledSubscriberWithoutBlockingOthers() {
+        RecordingEmitter stalled = subscribe(null);
+        stalled.gate = new CountDownLatch(1);
+        RecordingEmitter fast = subscribe(null);
+
+        publish(TaskEvent.TypeEnum.CREATED, 1L);
+
+        await(() -> fast.events().size() == 1);
+        await(() -> stalled.completed);
+        assertEquals(1, taskStreamService.getSubscriberCount());
+        assertTrue(stalled.events().isEmpty());
+    }
+
+    private RecordingEmitter subscribe(String lastEventId) {
+        taskStreamService.subscribe(lastEventId);
+        RecordingEmitter emitter = emitters.get(emitters.size() - 1);
+        // The first send opens the stream, with a comment when no event is pending
+        await(() -> !emitter.sent.isEmpty());
+        return emitter;
+    }
+
+    private void publish(TaskEvent.TypeEnum type, long id) {
+        var event = new TaskEvent();
+        event.setType(type);
+        event.setId(id);
+        taskStreamService.onTaskEvent(event);
+    }
+
+    private static String eventId(String event) {
+        return event.lines().filter(line -> line.startsWith("id:")).findFirst().orElseThrow().substring(3);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * An emitter that records the raw text of every event instead of writing it to a response.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+
+        /**
+         * Holds the sender inside send, like a client that stopped reading.
+         */
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            sent.add(builder.build().stream()
+                    .map(part -> part.getData().toString())
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completed = true;
+        }
+
+        private List<String> events() {
+            return sent.stream().filter(event -> !event.startsWith(":")).toList();
+        }
+    }
+}
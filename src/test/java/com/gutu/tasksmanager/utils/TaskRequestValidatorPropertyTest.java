@@ -0,0 +1,150 @@
+package com.gutu.tasksmanager.utils;
+
+import com.gutu.tasksmanager.exception.ValidationException;
+import com.gutu.tasksmanager.models.model.PatchTaskRequest;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.Tuple;
+import org.apache.commons.text.StringEscapeUtils;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that TaskRequestValidator accepts and rejects exactly what the regex based implementation
+ * it replaced did, with the same error messages.
+ */
+class TaskRequestValidatorPropertyTest {
+
+    private final TaskRequestValidator validator = new TaskRequestValidator(1000);
+
+    @Property(tries = 5000)
+    void testTitle_SameOutcomeAsRegexValidator(@ForAll("inputs") String title) {
+        PatchTaskRequest request = new PatchTaskRequest();
+        request.setTitle(title);
+
+        String expected = outcome(() -> {
+            if (RegexValidator.isBlank(title)) {
+                throw new ValidationException("Title must not be blank");
+            }
+            RegexValidator.validateInput("title", title, 100);
+        });
+
+        assertEquals(expected, outcome(() -> validator.validatePatchRequest(1L, request)));
+    }
+
+    @Property(tries = 5000)
+    void testDescription_SameOutcomeAsRegexValidator(@ForAll("inputs") String description) {
+        PatchTaskRequest request = new PatchTaskRequest();
+        request.setDescription(description);
+
+        String expected = outcome(() -> {
+            if (RegexValidator.isBlank(description)) {
+                throw new ValidationException("Description must not be blank");
+            }
+            RegexValidator.validateInput("description", description, 500);
+        });
+
+        assertEquals(expected, outcome(() -> validator.validatePatchRequest(1L, request)));
+    }
+
+    @Property(tries = 2000)
+    void testStatus_SameOutcomeAsRegexValidator(@ForAll("statuses") String status) {
+        PatchTaskRequest request = new PatchTaskRequest();
+        request.setStatus(status);
+
+        String expected = outcome(() -> RegexValidator.validateStatus(status));
+
+        assertEquals(expected, outcome(() -> validator.validatePatchRequest(1L, request)));
+    }
+
+    @Provide
+    Arbitrary<String> inputs() {
+        Arbitrary<String> words = Arbitraries.strings().alpha().numeric().ofMinLength(1).ofMaxLength(12);
+        Arbitrary<String> keywords = Arbitraries.of("select", "INSERT", "Update", "delete", "drop", "union", "exec",
+                "declare", "selection", "dropped");
+        Arbitrary<String> xssMarkers = Arbitraries.of("<script", "javascript:", "ONLOAD=", "onerror=", "<img", "<IFRAME",
+                "on load=");
+        Arbitrary<String> punctuation = Arbitraries.of(" ", ".", ",", "!", "?", "-", "_", "<", ":", "=", "'", "\"", "%",
+                ";", "(", ")", "&", "+", "\t", "\n", "\r", "\u000B", "\f");
+        // Letters with HTML entities, case folding traps, combining marks, line separators and surrogates
+        Arbitrary<String> unicode = Arbitraries.of("\u00E9", "\u00D6", "\u03B1", "\u0416", "\u017F", "\u212A", "\u0301",
+                "\u02C6", "\u00B2", "\u00BD", "\u0663", "\u0153", "\u0192", "\u00A0", "\u2028", "\u2029", "\u0085",
+                "\uD835\uDD18", "\uD800");
+        Arbitrary<String> anything = Arbitraries.strings().ofMaxLength(3);
+
+        Arbitrary<String> fragment = Arbitraries.frequencyOf(
+                Tuple.of(6, words),
+                Tuple.of(2, keywords),
+                Tuple.of(1, xssMarkers),
+                Tuple.of(5, punctuation),
+                Tuple.of(2, unicode),
+                Tuple.of(1, anything));
+        return fragment.list().ofMaxSize(30).map(fragments -> String.join("", fragments));
+    }
+
+    @Provide
+    Arbitrary<String> statuses() {
+        return Arbitraries.oneOf(
+                Arbitraries.of("TODO", "IN_PROGRESS", "DONE", "todo", "DONE\n", " TODO", "IN PROGRESS", ""),
+                Arbitraries.strings().ofMaxLength(12));
+    }
+
+    private static String outcome(Runnable validation) {
+        try {
+            validation.run();
+            return "valid";
+        } catch (ValidationException e) {
+            return e.getMessage();
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    /**
+     * The regex based validation that TaskRequestValidator used before the single pass scan.
+     */
+    private static final class RegexValidator {
+
+        private static final Pattern SAFE_INPUT_PATTERN = Pattern.compile("^[\\p{L}\\p{N}\\s.,!?-]{1,}$");
+
+        private static final Pattern SQL_INJECTION_PATTERN =
+                Pattern.compile("(?i).*(\\b(select|insert|update|delete|drop|union|exec|declare)\\b).*");
+
+        private static final Pattern XSS_PATTERN =
+                Pattern.compile("(?i).*(<script|javascript:|onload=|onerror=|<img|<iframe).*");
+
+        static void validateInput(String fieldName, String input, int maxLength) {
+            if (input.length() > maxLength) {
+                throw new ValidationException(fieldName + " must not exceed " + maxLength + " characters");
+            }
+            if (SQL_INJECTION_PATTERN.matcher(input).matches()) {
+                throw new ValidationException("Invalid " + fieldName + ": potential SQL injection detected");
+            }
+            if (XSS_PATTERN.matcher(input).matches()) {
+                throw new ValidationException("Invalid " + fieldName + ": potential XSS attack detected");
+            }
+            if (!SAFE_INPUT_PATTERN.matcher(input).matches()) {
+                throw new ValidationException("Invalid " + fieldName + ": contains invalid characters");
+            }
+            String sanitized = StringEscapeUtils.escapeHtml4(input).replaceAll("[<>\"'%;()&+]", "").trim();
+            if (!input.equals(sanitized)) {
+                throw new ValidationException("Invalid " + fieldName + ": contains potentially dangerous content");
+            }
+        }
+
+        static void validateStatus(String status) {
+            if (!status.matches("^(TODO|IN_PROGRESS|DONE)$")) {
+                throw new ValidationException("Invalid status value. Must be TODO, IN_PROGRESS, or DONE");
+            }
+        }
+
+        static boolean isBlank(String str) {
+            return str == null || str.trim().isEmpty();
+        }
+    }
+}